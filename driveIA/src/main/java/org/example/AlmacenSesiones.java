@@ -0,0 +1,210 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contexto de conversación acotado: por cada sesión guarda los últimos K turnos ya codificados
+ * (p. ej. el vector de letras de cada pregunta) en huecos preasignados de un único float[].
+ *
+ * Cada sesión ocupa un hueco fijo de K × dimensión floats usado como buffer circular, así que la
+ * memoria total se fija al crear el almacén y no crece con el número de sesiones vistas. Los
+ * huecos forman una lista doblemente enlazada (por índices, en int[]) ordenada por último acceso:
+ * al llenarse se desaloja la cabeza (la menos usada) y, como el acceso más antiguo también es el
+ * primero en caducar, el TTL se aplica mirando solo la cabeza. Buscar, añadir y desalojar es O(1).
+ */
+public class AlmacenSesiones {
+
+    private static final int NINGUNO = -1;
+
+    private final int capacidad;
+    private final int turnos;
+    private final int dimension;
+    private final long ttlNanos;
+
+    private final float[] vectores;      // [capacidad][turnos][dimension]
+    private final int[] siguienteTurno;  // posición del buffer circular donde va el próximo turno
+    private final int[] turnosGuardados;
+    private final long[] ultimoAcceso;
+    private final String[] claves;
+
+    // Lista por último acceso (cabeza = más antiguo) y pila de huecos libres
+    private final int[] anterior;
+    private final int[] siguiente;
+    private int cabeza = NINGUNO, cola = NINGUNO;
+    private final int[] libres;
+    private int numLibres;
+
+    private final Map<String, Integer> huecoDeSesion;
+    private long expulsadasPorTtl, expulsadasPorTamano;
+
+    public AlmacenSesiones(int capacidad, int turnos, int dimension, long ttlMs) {
+        // Sin huecos no hay cabeza que desalojar y sin turnos el buffer circular divide por cero
+        if (capacidad < 1 || turnos < 1 || dimension < 1) {
+            throw new IllegalArgumentException("capacidad, turnos y dimension deben ser >= 1: " +
+                    capacidad + ", " + turnos + ", " + dimension);
+        }
+        this.capacidad = capacidad;
+        this.turnos = turnos;
+        this.dimension = dimension;
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.vectores = new float[Math.multiplyExact(Math.multiplyExact(capacidad, turnos), dimension)];
+        this.siguienteTurno = new int[capacidad];
+        this.turnosGuardados = new int[capacidad];
+        this.ultimoAcceso = new long[capacidad];
+        this.claves = new String[capacidad];
+        this.anterior = new int[capacidad];
+        this.siguiente = new int[capacidad];
+        this.libres = new int[capacidad];
+        for (int i = 0; i < capacidad; i++) libres[i] = capacidad - 1 - i;
+        this.numLibres = capacidad;
+        // Dimensionado para no tener que redimensionar nunca
+        this.huecoDeSesion = new HashMap<>((int) (capacidad / 0.75f) + 1);
+    }
+
+    /**
+     * Añade un turno a la sesión (creándola si no existe). Si ya tiene K turnos se pisa el más antiguo.
+     */
+    public synchronized void registrar(String sesion, float[] vector) {
+        long ahora = System.nanoTime();
+        caducar(ahora);
+        Integer hueco = huecoDeSesion.get(sesion);
+        int h = hueco != null ? hueco : crear(sesion);
+        tocar(h, ahora);
+
+        int t = siguienteTurno[h];
+        System.arraycopy(vector, 0, vectores, (h * turnos + t) * dimension, dimension);
+        siguienteTurno[h] = (t + 1) % turnos;
+        if (turnosGuardados[h] < turnos) turnosGuardados[h]++;
+    }
+
+    /**
+     * Media de los turnos guardados de la sesión en "destino" (dimension floats). Devuelve cuántos
+     * turnos se promediaron; 0 (y destino a cero) si la sesión no existe o ha caducado.
+     */
+    public synchronized int contextoMedio(String sesion, float[] destino) {
+        Arrays.fill(destino, 0, dimension, 0f);
+        int h = buscar(sesion);
+        if (h == NINGUNO) return 0;
+        int n = turnosGuardados[h];
+        int base = h * turnos * dimension;
+        for (int t = 0; t < n; t++) {
+            int desde = base + t * dimension;
+            for (int j = 0; j < dimension; j++) destino[j] += vectores[desde + j];
+        }
+        for (int j = 0; j < dimension; j++) destino[j] /= n;
+        return n;
+    }
+
+    /**
+     * Los turnos guardados concatenados del más reciente al más antiguo en "destino"
+     * (K × dimension floats, relleno con ceros). Devuelve cuántos turnos se copiaron.
+     */
+    public synchronized int contextoConcatenado(String sesion, float[] destino) {
+        Arrays.fill(destino, 0, turnos * dimension, 0f);
+        int h = buscar(sesion);
+        if (h == NINGUNO) return 0;
+        int n = turnosGuardados[h];
+        for (int i = 0; i < n; i++) {
+            int t = Math.floorMod(siguienteTurno[h] - 1 - i, turnos);
+            System.arraycopy(vectores, (h * turnos + t) * dimension, destino, i * dimension, dimension);
+        }
+        return n;
+    }
+
+    public synchronized void cerrar(String sesion) {
+        Integer h = huecoDeSesion.get(sesion);
+        if (h != null) liberar(h);
+    }
+
+    private int buscar(String sesion) {
+        long ahora = System.nanoTime();
+        caducar(ahora);
+        Integer h = huecoDeSesion.get(sesion);
+        if (h == null) return NINGUNO;
+        tocar(h, ahora);
+        return h;
+    }
+
+    private int crear(String sesion) {
+        if (numLibres == 0) {
+            expulsadasPorTamano++;
+            liberar(cabeza);
+        }
+        int h = libres[--numLibres];
+        claves[h] = sesion;
+        siguienteTurno[h] = 0;
+        turnosGuardados[h] = 0;
+        anterior[h] = siguiente[h] = NINGUNO;
+        enlazarAlFinal(h);
+        huecoDeSesion.put(sesion, h);
+        return h;
+    }
+
+    // Las sesiones caducadas están todas al principio de la lista
+    private void caducar(long ahora) {
+        while (cabeza != NINGUNO && ahora - ultimoAcceso[cabeza] > ttlNanos) {
+            expulsadasPorTtl++;
+            liberar(cabeza);
+        }
+    }
+
+    private void tocar(int h, long ahora) {
+        ultimoAcceso[h] = ahora;
+        if (h != cola) {
+            desenlazar(h);
+            enlazarAlFinal(h);
+        }
+    }
+
+    private void liberar(int h) {
+        desenlazar(h);
+        huecoDeSesion.remove(claves[h]);
+        claves[h] = null;
+        libres[numLibres++] = h;
+    }
+
+    private void enlazarAlFinal(int h) {
+        anterior[h] = cola;
+        siguiente[h] = NINGUNO;
+        if (cola != NINGUNO) siguiente[cola] = h;
+        else cabeza = h;
+        cola = h;
+    }
+
+    private void desenlazar(int h) {
+        if (anterior[h] != NINGUNO) siguiente[anterior[h]] = siguiente[h];
+        else cabeza = siguiente[h];
+        if (siguiente[h] != NINGUNO) anterior[siguiente[h]] = anterior[h];
+        else cola = anterior[h];
+        anterior[h] = siguiente[h] = NINGUNO;
+    }
+
+    public synchronized int getSesiones() {
+        return huecoDeSesion.size();
+    }
+
+    public synchronized long getExpulsadasPorTtl() {
+        return expulsadasPorTtl;
+    }
+
+    public synchronized long getExpulsadasPorTamano() {
+        return expulsadasPorTamano;
+    }
+
+    public int getTurnos() {
+        return turnos;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Bytes de los arrays preasignados (sin las claves ni el mapa, que dependen de los ids)
+     */
+    public long bytes() {
+        return 4L * vectores.length + capacidad * (4L * 5 + 8L);
+    }
+}
@@ -0,0 +1,152 @@
+package org.example;
+
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Ejecuta muchos entrenamientos independientes con semillas distintas, en paralelo,
+ * y resume episodios hasta resolver, precisión final y tiempo con media y percentiles.
+ * Cada ejecución fija la semilla de Java, la de la inicialización de DL4J y la del
+ * generador de ND4J de su hilo, así que cualquier resultado se puede repetir.
+ *
+ * Tareas: "grid" (RLAgent en GridWorld.clasico) y "chat" (ChatRLAgentV2 sobre preguntas.json).
+ * Conviene lanzar con OMP_NUM_THREADS=1 para que cada ejecución use un solo núcleo.
+ */
+public class ArnesMultiSemilla {
+
+    private static final int EPISODIOS_GRID = 200;
+    private static final int EPISODIOS_CHAT = 100;
+    private static final double PRECISION_OBJETIVO_CHAT = 80.0;
+
+    private static final class Ejecucion {
+        long semilla;
+        int episodiosHastaResolver = -1;   // -1 = no resuelto
+        double precisionFinal;
+        double segundos;
+    }
+
+    private static Ejecucion entrenarGrid(long semilla) {
+        Nd4j.getRandom().setSeed(semilla);
+        Ejecucion ejecucion = new Ejecucion();
+        ejecucion.semilla = semilla;
+        long inicio = System.nanoTime();
+
+        RLAgent agent = new RLAgent(semilla);
+        GridWorld grid = GridWorld.clasico();
+        int optimo = 3;
+        int seguidos = 0;
+
+        for (int e = 1; e <= EPISODIOS_GRID; e++) {
+            grid.reset();
+            while (!grid.isDone()) {
+                int x = grid.getX(), y = grid.getY();
+                int action = agent.selectAction(x, y);
+                double reward = grid.step(action);
+                agent.learn(x, y, action, reward, grid.getX(), grid.getY());
+            }
+            seguidos = (grid.enMeta() && grid.getPasos() <= optimo) ? seguidos + 1 : 0;
+            if (seguidos >= 5 && ejecucion.episodiosHastaResolver < 0) {
+                ejecucion.episodiosHastaResolver = e;
+            }
+        }
+
+        // Precisión final: ¿la política voraz llega a la meta por el camino óptimo?
+        agent.disableExploration();
+        grid.reset();
+        while (!grid.isDone()) {
+            grid.step(agent.selectAction(grid.getX(), grid.getY()));
+        }
+        ejecucion.precisionFinal = (grid.enMeta() && grid.getPasos() <= optimo) ? 100.0 : 0.0;
+        ejecucion.segundos = (System.nanoTime() - inicio) / 1e9;
+        return ejecucion;
+    }
+
+    private static Ejecucion entrenarChat(long semilla) {
+        Nd4j.getRandom().setSeed(semilla);
+        Ejecucion ejecucion = new Ejecucion();
+        ejecucion.semilla = semilla;
+        long inicio = System.nanoTime();
+
+        ChatRLAgentV2 agent = new ChatRLAgentV2(semilla);
+        agent.inicializarRed();
+
+        for (int ep = 1; ep <= EPISODIOS_CHAT; ep++) {
+            agent.entrenarEpoca();
+            if (ejecucion.episodiosHastaResolver < 0
+                    && EntrenadorParaleloV2.precision(agent, agent.getModel()) >= PRECISION_OBJETIVO_CHAT) {
+                ejecucion.episodiosHastaResolver = ep;
+            }
+        }
+
+        ejecucion.precisionFinal = EntrenadorParaleloV2.precision(agent, agent.getModel());
+        ejecucion.segundos = (System.nanoTime() - inicio) / 1e9;
+        return ejecucion;
+    }
+
+    // Percentil por rango más cercano sobre valores ya ordenados
+    static double percentil(double[] ordenados, double p) {
+        int rango = (int) Math.ceil(p / 100.0 * ordenados.length);
+        return ordenados[Math.max(0, Math.min(ordenados.length - 1, rango - 1))];
+    }
+
+    static String resumen(String nombre, double[] valores) {
+        if (valores.length == 0) {
+            return String.format("%-24s sin datos", nombre);
+        }
+        double[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        double media = Arrays.stream(ordenados).average().orElse(0);
+        double varianza = Arrays.stream(ordenados).map(v -> (v - media) * (v - media)).sum() / ordenados.length;
+        return String.format("%-24s media %8.2f ± %6.2f | p50 %8.2f | p90 %8.2f | p99 %8.2f",
+                nombre, media, Math.sqrt(varianza),
+                percentil(ordenados, 50), percentil(ordenados, 90), percentil(ordenados, 99));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String tarea = args.length > 0 ? args[0] : "grid";
+        int numSemillas = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int hilos = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long semillaBase = args.length > 3 ? Long.parseLong(args[3]) : 1000L;
+
+        if (tarea.equals("chat")) {
+            ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        }
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🎲 EVALUACIÓN MULTI-SEMILLA            ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("⚙️ Tarea: " + tarea + " | Semillas: " + semillaBase + ".." + (semillaBase + numSemillas - 1) + " | Hilos: " + hilos + "\n");
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        List<Ejecucion> ejecuciones = new ArrayList<>();
+        long inicio = System.nanoTime();
+        try {
+            List<Future<Ejecucion>> futuros = new ArrayList<>();
+            for (int i = 0; i < numSemillas; i++) {
+                long semilla = semillaBase + i;
+                futuros.add(pool.submit(() -> tarea.equals("chat") ? entrenarChat(semilla) : entrenarGrid(semilla)));
+            }
+            for (Future<Ejecucion> f : futuros) {
+                ejecuciones.add(f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        double segundosTotales = (System.nanoTime() - inicio) / 1e9;
+
+        double[] episodios = ejecuciones.stream().filter(e -> e.episodiosHastaResolver > 0)
+                .mapToDouble(e -> e.episodiosHastaResolver).toArray();
+        double[] precision = ejecuciones.stream().mapToDouble(e -> e.precisionFinal).toArray();
+        double[] tiempos = ejecuciones.stream().mapToDouble(e -> e.segundos).toArray();
+
+        System.out.println("📊 Resueltas: " + episodios.length + "/" + numSemillas);
+        System.out.println(resumen("Episodios hasta resolver", episodios));
+        System.out.println(resumen("Precisión final (%)", precision));
+        System.out.println(resumen("Tiempo por ejecución (s)", tiempos));
+        System.out.println("\n⏱️ Tiempo total: " + String.format("%.1f", segundosTotales) + " s");
+    }
+}
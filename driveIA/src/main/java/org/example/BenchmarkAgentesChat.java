@@ -0,0 +1,270 @@
+package org.example;
+
+import org.bytedeco.javacpp.Pointer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compara las cuatro variantes de chat (ChatRLAgent, ChatRLAgentMejorado, ChatRLAgentOptimo y
+ * ChatRLAgentV2) sobre el mismo dataset: tiempo de entrenamiento hasta una precisión objetivo,
+ * pico de heap y de memoria nativa, consultas/s y latencia p50/p99 de inferencia.
+ *
+ * Cada ejecución añade una línea JSON a benchmark-agentes.jsonl para seguir la evolución.
+ *
+ * Uso: BenchmarkAgentesChat [preguntas.json | sintetico:N] [objetivo %] [max épocas]
+ */
+public class BenchmarkAgentesChat {
+
+    private static final int CONSULTAS = 5000;
+    private static final String RESULTADOS = "benchmark-agentes.jsonl";
+
+    /**
+     * Lo mínimo que el benchmark necesita de cada variante
+     */
+    private interface Adaptador {
+        void aprender(String pregunta, String respuestaCorrecta, int indiceRespuesta);
+
+        String responder(String pregunta);
+
+        double getEpsilon();
+
+        void setEpsilon(double epsilon);
+    }
+
+    private static Adaptador crear(String nombre, List<String> respuestas) {
+        switch (nombre) {
+            case "ChatRLAgent": {
+                ChatRLAgent agente = new ChatRLAgent();
+                agente.inicializarRed();
+                return new Adaptador() {
+                    public void aprender(String p, String r, int i) { agente.learn(p, agente.selectResponse(p), r); }
+                    public String responder(String p) { return agente.selectResponse(p); }
+                    public double getEpsilon() { return agente.getEpsilon(); }
+                    public void setEpsilon(double e) { agente.setEpsilon(e); }
+                };
+            }
+            case "ChatRLAgentMejorado": {
+                ChatRLAgentMejorado agente = new ChatRLAgentMejorado(respuestas, Precision.FP32);
+                return new Adaptador() {
+                    public void aprender(String p, String r, int i) { agente.learn(p, agente.selectResponse(p), r); }
+                    public String responder(String p) { return agente.selectResponse(p); }
+                    public double getEpsilon() { return agente.getEpsilon(); }
+                    public void setEpsilon(double e) { agente.setEpsilon(e); }
+                };
+            }
+            case "ChatRLAgentOptimo": {
+                ChatRLAgentOptimo agente = new ChatRLAgentOptimo(respuestas, Precision.FP32);
+                return new Adaptador() {
+                    public void aprender(String p, String r, int i) { agente.learn(p, i); }
+                    public String responder(String p) { return agente.selectResponse(p); }
+                    public double getEpsilon() { return agente.getEpsilon(); }
+                    public void setEpsilon(double e) { agente.setEpsilon(e); }
+                };
+            }
+            default: {
+                ChatRLAgentV2 agente = new ChatRLAgentV2(42L);
+                agente.inicializarRed();
+                return new Adaptador() {
+                    public void aprender(String p, String r, int i) { agente.learn(p, agente.selectResponse(p), r); }
+                    public String responder(String p) { return agente.selectResponse(p); }
+                    public double getEpsilon() { return agente.getEpsilon(); }
+                    public void setEpsilon(double e) { agente.setEpsilon(e); }
+                };
+            }
+        }
+    }
+
+    /**
+     * N pares sintéticos: cada respuesta tiene su propio subconjunto de letras y sus preguntas
+     * se forman con palabras de ese subconjunto (el sufijo numérico no afecta a la codificación)
+     */
+    static Path generarSintetico(int pares, long semilla) throws IOException {
+        Random random = new Random(semilla);
+        int numRespuestas = Math.max(5, pares / 20);
+        JSONArray datos = new JSONArray();
+        char[][] letrasPorRespuesta = new char[numRespuestas][8];
+        for (char[] letras : letrasPorRespuesta) {
+            for (int j = 0; j < letras.length; j++) letras[j] = (char) ('a' + random.nextInt(26));
+        }
+        for (int i = 0; i < pares; i++) {
+            int r = random.nextInt(numRespuestas);
+            StringBuilder pregunta = new StringBuilder();
+            int palabras = 1 + random.nextInt(3);
+            for (int w = 0; w < palabras; w++) {
+                int largo = 3 + random.nextInt(5);
+                for (int c = 0; c < largo; c++) pregunta.append(letrasPorRespuesta[r][random.nextInt(8)]);
+                pregunta.append(' ');
+            }
+            pregunta.append(i);
+            datos.put(new JSONObject().put("pregunta", pregunta.toString()).put("respuesta", "respuesta " + r));
+        }
+        Path archivo = Files.createTempFile("preguntas-sinteticas-", ".json");
+        archivo.toFile().deleteOnExit();
+        Files.write(archivo, datos.toString().getBytes(StandardCharsets.UTF_8));
+        return archivo;
+    }
+
+    // Pico de heap usado y de memoria nativa (javacpp) por encima de lo que había al empezar
+    private static final class Muestreador extends Thread {
+        volatile boolean activo = true;
+        final long baseHeap, baseNativo;
+        volatile long picoHeap, picoNativo;
+
+        Muestreador() {
+            setDaemon(true);
+            Runtime runtime = Runtime.getRuntime();
+            baseHeap = picoHeap = runtime.totalMemory() - runtime.freeMemory();
+            baseNativo = picoNativo = Pointer.totalBytes();
+        }
+
+        double heapMB() {
+            return (picoHeap - baseHeap) / 1048576.0;
+        }
+
+        double nativoMB() {
+            return (picoNativo - baseNativo) / 1048576.0;
+        }
+
+        @Override
+        public void run() {
+            Runtime runtime = Runtime.getRuntime();
+            while (activo) {
+                picoHeap = Math.max(picoHeap, runtime.totalMemory() - runtime.freeMemory());
+                picoNativo = Math.max(picoNativo, Pointer.totalBytes());
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static double precision(Adaptador agente, List<Map.Entry<String, String>> pares) {
+        double epsilon = agente.getEpsilon();
+        agente.setEpsilon(0.0);
+        int aciertos = 0;
+        for (Map.Entry<String, String> par : pares) {
+            if (agente.responder(par.getKey()).equals(par.getValue())) aciertos++;
+        }
+        agente.setEpsilon(epsilon);
+        return aciertos * 100.0 / pares.size();
+    }
+
+    private static JSONObject medir(String nombre, List<String> respuestas, List<Map.Entry<String, String>> pares,
+                                    double objetivo, int maxEpocas) {
+        System.gc();
+        Muestreador muestreador = new Muestreador();
+        muestreador.start();
+
+        Adaptador agente = crear(nombre, respuestas);
+        int[] indices = new int[pares.size()];
+        for (int i = 0; i < indices.length; i++) indices[i] = respuestas.indexOf(pares.get(i).getValue());
+
+        // Entrenamiento por épocas; la evaluación entre épocas no cuenta en el tiempo
+        double segundos = 0, segundosHastaObjetivo = -1, precisionFinal = 0;
+        int epocas = 0;
+        while (epocas < maxEpocas) {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < pares.size(); i++) {
+                agente.aprender(pares.get(i).getKey(), pares.get(i).getValue(), indices[i]);
+            }
+            segundos += (System.nanoTime() - inicio) / 1e9;
+            epocas++;
+            precisionFinal = precision(agente, pares);
+            if (precisionFinal >= objetivo) {
+                segundosHastaObjetivo = segundos;
+                break;
+            }
+        }
+
+        // Inferencia: una consulta cada vez, sin exploración
+        agente.setEpsilon(0.0);
+        for (int i = 0; i < 500; i++) agente.responder(pares.get(i % pares.size()).getKey());
+        double[] latenciasUs = new double[CONSULTAS];
+        long inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) {
+            long t = System.nanoTime();
+            agente.responder(pares.get(i % pares.size()).getKey());
+            latenciasUs[i] = (System.nanoTime() - t) / 1e3;
+        }
+        double qps = CONSULTAS / ((System.nanoTime() - inicio) / 1e9);
+
+        muestreador.activo = false;
+        Arrays.sort(latenciasUs);
+        double p50 = ArnesMultiSemilla.percentil(latenciasUs, 50);
+        double p99 = ArnesMultiSemilla.percentil(latenciasUs, 99);
+
+        String tiempo = segundosHastaObjetivo < 0 ? "  no alcanzado" : String.format("%12.2f s", segundosHastaObjetivo);
+        System.out.println(String.format("  %-20s | %s (%4d épocas) | precisión %5.1f%% | heap %7.1f MB | nativa %7.1f MB" +
+                        " | %8.0f consultas/s | p50 %7.1f µs | p99 %7.1f µs",
+                nombre, tiempo, epocas, precisionFinal, muestreador.heapMB(), muestreador.nativoMB(),
+                qps, p50, p99));
+
+        return new JSONObject()
+                .put("agente", nombre)
+                .put("epocas", epocas)
+                .put("segundosEntrenamiento", segundos)
+                .put("segundosHastaObjetivo", segundosHastaObjetivo < 0 ? JSONObject.NULL : segundosHastaObjetivo)
+                .put("precisionFinal", precisionFinal)
+                .put("picoHeapMB", muestreador.heapMB())
+                .put("picoNativoMB", muestreador.nativoMB())
+                .put("consultasPorSegundo", qps)
+                .put("p50us", p50)
+                .put("p99us", p99);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String dataset = args.length > 0 ? args[0] : "preguntas.json";
+        double objetivo = args.length > 1 ? Double.parseDouble(args[1]) : 80.0;
+        int maxEpocas = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🏁 BENCHMARK DE AGENTES DE CHAT        ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        String ruta = dataset.startsWith("sintetico:")
+                ? generarSintetico(Integer.parseInt(dataset.substring("sintetico:".length())), 42L).toString()
+                : dataset;
+
+        // ChatRLAgent y ChatRLAgentV2 leen el JSON en sus tablas; el resto recibe las respuestas
+        ChatRLAgent.cargarDesdeJSON(ruta);
+        ChatRLAgentV2.cargarDesdeJSON(ruta);
+        List<String> respuestas = new ArrayList<>(ChatRLAgentV2.getRespuestasUnicas());
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+
+        System.out.println("🎯 Objetivo: " + objetivo + "% (máx. " + maxEpocas + " épocas) | " + pares.size() +
+                " pares | " + respuestas.size() + " respuestas\n");
+
+        JSONArray agentes = new JSONArray();
+        for (String nombre : new String[]{"ChatRLAgent", "ChatRLAgentMejorado", "ChatRLAgentOptimo", "ChatRLAgentV2"}) {
+            agentes.put(medir(nombre, respuestas, pares, objetivo, maxEpocas));
+        }
+
+        JSONObject ejecucion = new JSONObject()
+                .put("fecha", Instant.now().toString())
+                .put("dataset", dataset)
+                .put("pares", pares.size())
+                .put("respuestas", respuestas.size())
+                .put("objetivo", objetivo)
+                .put("maxEpocas", maxEpocas)
+                .put("procesadores", Runtime.getRuntime().availableProcessors())
+                .put("agentes", agentes);
+        Files.write(Paths.get(RESULTADOS), (ejecucion + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        System.out.println("\n💾 Resultados añadidos a " + RESULTADOS);
+    }
+}
@@ -0,0 +1,156 @@
+package org.example;
+
+import org.bytedeco.javacpp.Pointer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Compara el camino "clásico" de learn/select (Nd4j.create(new double[][]{...}), output().dup(),
+ * objetivos nuevos en cada paso) con el camino actual de los agentes (buffers preasignados +
+ * EspacioTrabajo), sobre la misma red.
+ *
+ * Por cada modo mide: bytes de heap asignados por paso en el hilo, colecciones y tiempo de GC,
+ * pico de memoria fuera del heap (javacpp) y latencia por paso (p50/p99/máx).
+ * Lo que queda de heap en el modo workspace es la contabilidad interna de DL4J en fit()/output().
+ */
+public class BenchmarkAsignaciones {
+
+    private static final class Medida {
+        String nombre;
+        double bytesHeapPorPaso;
+        long colecciones;
+        long msGC;
+        double picoFueraHeapMB;
+        double p50us, p99us, maxUs;
+    }
+
+    private static long bytesHeapHilo() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static long[] gc() {
+        long colecciones = 0, ms = 0;
+        for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            colecciones += Math.max(0, bean.getCollectionCount());
+            ms += Math.max(0, bean.getCollectionTime());
+        }
+        return new long[]{colecciones, ms};
+    }
+
+    private static Medida medir(String nombre, int pasos, IntConsumer paso) {
+        for (int i = 0; i < Math.min(1000, pasos); i++) {
+            paso.accept(i); // calentamiento (JIT y aprendizaje del tamaño del workspace)
+        }
+        System.gc();
+
+        long[] tiempos = new long[pasos];
+        long pico = Pointer.totalBytes();
+        long[] gcInicio = gc();
+        long heapInicio = bytesHeapHilo();
+        for (int i = 0; i < pasos; i++) {
+            long t0 = System.nanoTime();
+            paso.accept(i);
+            tiempos[i] = System.nanoTime() - t0;
+            if ((i & 255) == 0) {
+                pico = Math.max(pico, Pointer.totalBytes());
+            }
+        }
+        long heapFin = bytesHeapHilo();
+        long[] gcFin = gc();
+
+        Arrays.sort(tiempos);
+        Medida m = new Medida();
+        m.nombre = nombre;
+        m.bytesHeapPorPaso = (heapFin - heapInicio) / (double) pasos;
+        m.colecciones = gcFin[0] - gcInicio[0];
+        m.msGC = gcFin[1] - gcInicio[1];
+        m.picoFueraHeapMB = pico / 1e6;
+        m.p50us = tiempos[pasos / 2] / 1e3;
+        m.p99us = tiempos[(int) (pasos * 0.99)] / 1e3;
+        m.maxUs = tiempos[pasos - 1] / 1e3;
+        return m;
+    }
+
+    private static void imprimir(List<Medida> medidas) {
+        System.out.println(String.format("  %-22s %12s %6s %8s %12s %9s %9s %10s",
+                "Modo", "heap B/paso", "GCs", "GC ms", "fuera heap MB", "p50 µs", "p99 µs", "máx µs"));
+        for (Medida m : medidas) {
+            System.out.println(String.format("  %-22s %12.0f %6d %8d %12.1f %9.1f %9.1f %10.1f",
+                    m.nombre, m.bytesHeapPorPaso, m.colecciones, m.msGC, m.picoFueraHeapMB, m.p50us, m.p99us, m.maxUs));
+        }
+        System.out.println();
+    }
+
+    public static void main(String[] args) {
+        int pasos = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🧹 ASIGNACIONES POR PASO (WORKSPACES)  ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        // ---------- GridWorld: RLAgent ----------
+        RLAgent agente = new RLAgent(7L);
+        agente.disableExploration();
+        MultiLayerNetwork redGrid = agente.getModel();
+        Random random = new Random(7);
+        int[][] transiciones = new int[4096][];
+        for (int i = 0; i < transiciones.length; i++) {
+            transiciones[i] = new int[]{random.nextInt(5), random.nextInt(5), random.nextInt(4), random.nextInt(5), random.nextInt(5)};
+        }
+
+        List<Medida> grid = new ArrayList<>();
+        grid.add(medir("RLAgent clásico", pasos, i -> {
+            int[] t = transiciones[i & 4095];
+            INDArray input = Nd4j.create(new double[][]{{t[0], t[1]}});
+            Nd4j.argMax(redGrid.output(input), 1).getInt(0);
+            INDArray target = redGrid.output(input).dup();
+            INDArray futureQ = redGrid.output(Nd4j.create(new double[][]{{t[3], t[4]}}));
+            target.putScalar(t[2], -0.1 + 0.99 * futureQ.maxNumber().doubleValue());
+            redGrid.fit(input, target);
+        }));
+        grid.add(medir("RLAgent workspace", pasos, i -> {
+            int[] t = transiciones[i & 4095];
+            agente.selectAction(t[0], t[1]);
+            agente.learn(t[0], t[1], t[2], -0.1, t[3], t[4]);
+        }));
+        System.out.println("🎮 GridWorld (RLAgent, " + pasos + " pasos de select + learn)");
+        imprimir(grid);
+
+        // ---------- Chat: ChatRLAgentV2 ----------
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        ChatRLAgentV2 chat = new ChatRLAgentV2(7L);
+        chat.inicializarRed();
+        chat.disableExploration();
+        MultiLayerNetwork redChat = chat.getModel();
+        int acciones = ChatRLAgentV2.getRespuestasUnicas().size();
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+
+        List<Medida> conversacion = new ArrayList<>();
+        conversacion.add(medir("ChatRLAgentV2 clásico", pasos, i -> {
+            Map.Entry<String, String> par = pares.get(i % pares.size());
+            INDArray input = Nd4j.create(new double[][]{ChatRLAgentV2.preguntaAVector(par.getKey())});
+            int generada = Nd4j.argMax(redChat.output(input), 1).getInt(0);
+            ChatRLAgentV2.calcularRecompensa(par.getKey(), ChatRLAgentV2.getRespuestasUnicas().get(generada), par.getValue());
+            double[] targetArray = new double[acciones];
+            targetArray[chat.indiceDeRespuesta(par.getValue())] = 1.0;
+            redChat.fit(input, Nd4j.create(new double[][]{targetArray}));
+        }));
+        conversacion.add(medir("ChatRLAgentV2 workspace", pasos, i -> {
+            Map.Entry<String, String> par = pares.get(i % pares.size());
+            String generada = chat.selectResponse(par.getKey());
+            chat.learn(par.getKey(), generada, par.getValue());
+        }));
+        System.out.println("💬 Chat (ChatRLAgentV2, " + pasos + " pasos de select + learn)");
+        imprimir(conversacion);
+    }
+}
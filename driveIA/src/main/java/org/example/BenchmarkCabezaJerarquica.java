@@ -0,0 +1,119 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Coste por consulta y por fit de la salida plana (softmax sobre N respuestas) frente a la
+ * cabeza jerárquica (√N grupos) para catálogos sintéticos de 1k, 10k y 100k respuestas,
+ * y precisión de ambos modos de ChatRLAgentV2 sobre preguntas.json.
+ */
+public class BenchmarkCabezaJerarquica {
+
+    private static final int CONSULTAS = 2000;
+    private static final int FITS = 100;
+
+    private static double[][] catalogoSintetico(int respuestas, Random random) {
+        double[][] centroides = new double[respuestas][26];
+        for (double[] c : centroides) {
+            int letras = 3 + random.nextInt(6);
+            for (int i = 0; i < letras; i++) c[random.nextInt(26)] = 1.0;
+        }
+        return centroides;
+    }
+
+    private static INDArray fila(double[] vector) {
+        return Nd4j.create(new double[][]{vector}).castTo(DataType.FLOAT);
+    }
+
+    private static void medir(int respuestas) {
+        Random random = new Random(respuestas);
+        double[][] centroides = catalogoSintetico(respuestas, random);
+        INDArray[] entradas = new INDArray[64];
+        for (int i = 0; i < entradas.length; i++) entradas[i] = fila(centroides[random.nextInt(respuestas)]);
+
+        // --- Salida plana ---
+        MultiLayerNetwork plana = ChatRLAgentV2.crearRed(respuestas, 1L, DataType.FLOAT);
+        INDArray objetivo = Nd4j.create(DataType.FLOAT, 1, respuestas);
+        for (int i = 0; i < 200; i++) {
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir("WS_BENCH_PLANA")) {
+                plana.output(entradas[i & 63], false, ws);
+            }
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) {
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir("WS_BENCH_PLANA")) {
+                EspacioTrabajo.argMax(plana.output(entradas[i & 63], false, ws));
+            }
+        }
+        double usConsultaPlana = (System.nanoTime() - inicio) / 1e3 / CONSULTAS;
+        inicio = System.nanoTime();
+        for (int i = 0; i < FITS; i++) {
+            objetivo.assign(0);
+            objetivo.putScalar(random.nextInt(respuestas), 1.0);
+            plana.fit(entradas[i & 63], objetivo);
+        }
+        double msFitPlana = (System.nanoTime() - inicio) / 1e6 / FITS;
+
+        // --- Cabeza jerárquica ---
+        inicio = System.nanoTime();
+        CabezaJerarquica cabeza = CabezaJerarquica.construir(centroides, CabezaJerarquica.gruposPorDefecto(respuestas), 1L, DataType.FLOAT);
+        double segConstruccion = (System.nanoTime() - inicio) / 1e9;
+        for (int i = 0; i < 200; i++) cabeza.predecir(entradas[i & 63]);
+        inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) cabeza.predecir(entradas[i & 63]);
+        double usConsultaJerarquica = (System.nanoTime() - inicio) / 1e3 / CONSULTAS;
+        inicio = System.nanoTime();
+        for (int i = 0; i < FITS; i++) cabeza.aprender(entradas[i & 63], random.nextInt(respuestas));
+        double msFitJerarquica = (System.nanoTime() - inicio) / 1e6 / FITS;
+
+        System.out.println(String.format("  N=%-7d | plana: %8.1f µs/consulta %7.2f ms/fit %9d params" +
+                        " | jerárquica (G=%d): %7.1f µs/consulta %6.2f ms/fit %9d params | agrupado %.1f s",
+                respuestas, usConsultaPlana, msFitPlana, plana.numParams(),
+                cabeza.getNumGrupos(), usConsultaJerarquica, msFitJerarquica, cabeza.numParametros(), segConstruccion));
+    }
+
+    public static void main(String[] args) {
+        int[] tamanos = {1_000, 10_000, 100_000};
+        if (args.length > 0) {
+            tamanos = new int[args.length];
+            for (int i = 0; i < args.length; i++) tamanos[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🌳 CABEZA JERÁRQUICA vs SOFTMAX PLANO  ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        System.out.println("⚡ Catálogos sintéticos");
+        for (int n : tamanos) {
+            medir(n);
+        }
+
+        System.out.println("\n🎯 Precisión en preguntas.json (100 episodios)");
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        for (boolean jerarquica : new boolean[]{false, true}) {
+            ChatRLAgentV2 agente = new ChatRLAgentV2(42L);
+            agente.inicializarRed();
+            if (jerarquica) {
+                agente.activarCabezaJerarquica(CabezaJerarquica.gruposPorDefecto(ChatRLAgentV2.getRespuestasUnicas().size()));
+            }
+            long inicio = System.nanoTime();
+            for (int ep = 0; ep < 100; ep++) agente.entrenarEpoca();
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            agente.disableExploration();
+            int aciertos = 0;
+            for (Map.Entry<String, String> par : ChatRLAgentV2.getRespuestasCorrectas().entrySet()) {
+                if (agente.selectResponse(par.getKey()).equals(par.getValue())) aciertos++;
+            }
+            System.out.println(String.format("  %-10s | %.1f s | precisión %.1f%%", jerarquica ? "jerárquica" : "plana",
+                    segundos, aciertos * 100.0 / ChatRLAgentV2.getRespuestasCorrectas().size()));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+/**
+ * Escalado del gridworld: pasos de entorno por segundo con una política aleatoria
+ * (de 4x4 a 1000x1000) y pasos hasta la meta de RLAgent en los tableros en los
+ * que entrenar la red todavía es razonable.
+ */
+public class BenchmarkGridWorld {
+
+    private static GridWorld crearGrid(int lado, double densidadObstaculos) {
+        return new GridWorld(lado, lado, 4 * lado * lado)
+                .agregarMeta(lado - 1, 0)
+                .agregarObstaculosAleatorios(densidadObstaculos, 42L);
+    }
+
+    private static double pasosPorSegundo(GridWorld grid, long pasos) {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] estado = new double[grid.tamanoEstado()];
+        double checksum = 0;
+
+        long inicio = System.nanoTime();
+        for (long i = 0; i < pasos; i++) {
+            checksum += grid.step(random.nextInt(4));
+            if (grid.isDone()) grid.reset();
+            grid.observar(estado);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        if (checksum == Double.MIN_VALUE) System.out.println(estado[0]); // evita que el JIT elimine el bucle
+        return pasos / segundos;
+    }
+
+    private static double pasosHastaMeta(GridWorld grid, int episodios, int ultimos) {
+        RLAgent agent = new RLAgent();
+        long sumaUltimos = 0;
+
+        for (int e = 1; e <= episodios; e++) {
+            grid.reset();
+            while (!grid.isDone()) {
+                int x = grid.getX(), y = grid.getY();
+                int action = agent.selectAction(x, y);
+                double reward = grid.step(action);
+                agent.learn(x, y, action, reward, grid.getX(), grid.getY());
+            }
+            if (e > episodios - ultimos) sumaUltimos += grid.getPasos();
+        }
+        return (double) sumaUltimos / ultimos;
+    }
+
+    public static void main(String[] args) {
+        int[] lados = {4, 16, 64, 256, 1000};
+        int maxLadoAgente = 16;
+        double densidad = 0.1;
+        long pasos = 20_000_000L;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🗺️ ESCALADO DEL GRIDWORLD              ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("⚙️ Obstáculos: " + (int) (densidad * 100) + "% | Pasos medidos por tamaño: " + pasos + "\n");
+
+        for (int lado : lados) {
+            GridWorld grid = crearGrid(lado, densidad);
+            pasosPorSegundo(grid, pasos / 10); // calentamiento JIT
+            grid.reset();
+            double rendimiento = pasosPorSegundo(grid, pasos);
+
+            String agente = "-";
+            if (lado <= maxLadoAgente) {
+                agente = String.format("%.1f", pasosHastaMeta(crearGrid(lado, densidad), 200, 10));
+            }
+
+            System.out.println("Grid " + lado + "x" + lado +
+                    " | Pasos entorno/s: " + String.format("%.1f", rendimiento / 1e6) + " M" +
+                    " | Pasos hasta meta (agente, últimos 10 ep.): " + agente);
+        }
+
+        System.out.println("\n✅ Benchmark terminado.");
+    }
+}
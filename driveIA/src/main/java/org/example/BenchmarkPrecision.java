@@ -0,0 +1,96 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+/**
+ * Compara FP64 / FP32 / BF16 en los dos problemas del repo:
+ * - preguntas.json con ChatRLAgentV2 (pasos de entrenamiento/s, memoria de la red y precisión final)
+ * - GridWorld.clasico con RLAgent (pasos/s, memoria y % de semillas que acaban en el camino óptimo)
+ *
+ * Las precisiones que el backend de CPU no soporta se marcan y se saltan.
+ */
+public class BenchmarkPrecision {
+
+    private static final int EPISODIOS_CHAT = 50;
+    private static final int EPISODIOS_GRID = 200;
+    private static final int SEMILLAS = 3;
+
+    // Parámetros + estado del updater (Adam guarda dos momentos por parámetro)
+    private static double memoriaKB(MultiLayerNetwork red) {
+        long elementos = red.numParams();
+        INDArray estado = red.getUpdater().getStateViewArray();
+        if (estado != null) elementos += estado.length();
+        return elementos * red.params().dataType().width() / 1024.0;
+    }
+
+    private static String chat(Precision precision) {
+        double pasosPorSegundo = 0, precisionFinal = 0, memoria = 0;
+        for (int s = 0; s < SEMILLAS; s++) {
+            Nd4j.getRandom().setSeed(100 + s);
+            ChatRLAgentV2 agente = new ChatRLAgentV2(100 + s, precision);
+            agente.inicializarRed();
+            long inicio = System.nanoTime();
+            for (int ep = 0; ep < EPISODIOS_CHAT; ep++) {
+                agente.entrenarEpoca();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            pasosPorSegundo += EPISODIOS_CHAT * ChatRLAgentV2.getRespuestasCorrectas().size() / segundos;
+            precisionFinal += EntrenadorParaleloV2.precision(agente, agente.getModel());
+            memoria = memoriaKB(agente.getModel());
+        }
+        return String.format("%-5s | chat | %10.0f pasos/s | %9.1f KB | precisión %6.1f%%",
+                precision, pasosPorSegundo / SEMILLAS, memoria, precisionFinal / SEMILLAS);
+    }
+
+    private static String grid(Precision precision) {
+        double pasosPorSegundo = 0, memoria = 0;
+        int optimas = 0;
+        for (int s = 0; s < SEMILLAS; s++) {
+            Nd4j.getRandom().setSeed(200 + s);
+            RLAgent agente = new RLAgent(200 + s, precision);
+            GridWorld grid = GridWorld.clasico();
+            long pasos = 0;
+            long inicio = System.nanoTime();
+            for (int e = 0; e < EPISODIOS_GRID; e++) {
+                grid.reset();
+                while (!grid.isDone()) {
+                    int x = grid.getX(), y = grid.getY();
+                    int accion = agente.selectAction(x, y);
+                    double recompensa = grid.step(accion);
+                    agente.learn(x, y, accion, recompensa, grid.getX(), grid.getY());
+                    pasos++;
+                }
+            }
+            pasosPorSegundo += pasos / ((System.nanoTime() - inicio) / 1e9);
+            memoria = memoriaKB(agente.getModel());
+
+            agente.disableExploration();
+            grid.reset();
+            while (!grid.isDone()) {
+                grid.step(agente.selectAction(grid.getX(), grid.getY()));
+            }
+            if (grid.enMeta() && grid.getPasos() <= 3) optimas++;
+        }
+        return String.format("%-5s | grid | %10.0f pasos/s | %9.1f KB | óptimo   %6.1f%%",
+                precision, pasosPorSegundo / SEMILLAS, memoria, optimas * 100.0 / SEMILLAS);
+    }
+
+    public static void main(String[] args) {
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🔢 COMPARATIVA DE PRECISIÓN NUMÉRICA   ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+
+        for (Precision precision : Precision.values()) {
+            if (!precision.soportada()) {
+                System.out.println(String.format("%-5s | ⚠️ no soportada por el backend actual", precision));
+                continue;
+            }
+            System.out.println(chat(precision));
+            System.out.println(grid(precision));
+        }
+    }
+}
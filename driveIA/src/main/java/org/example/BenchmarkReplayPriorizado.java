@@ -0,0 +1,89 @@
+package org.example;
+
+/**
+ * Compara el aprendizaje online de RLAgent (un fit por paso, como en Main) con el
+ * replay priorizado en gridworlds más grandes y con recompensa más escasa:
+ * se sale de la esquina (0, alto-1) y solo la esquina (ancho-1, 0) da +10.
+ */
+public class BenchmarkReplayPriorizado {
+
+    private static final int MAX_EPISODIOS = 300;
+    private static final int EPISODIOS_ESTABLES = 5;  // seguidos cerca del óptimo para considerar convergido
+
+    private static final class Resultado {
+        int episodiosConvergencia = -1;
+        long actualizaciones;
+        long pasosEntorno;
+        double segundos;
+    }
+
+    private static Resultado entrenar(int lado, boolean priorizado) {
+        RLAgent agent = new RLAgent();
+        if (priorizado) {
+            agent.activarReplayPriorizado(10_000, 32, 20_000);
+        }
+
+        GridWorld grid = new GridWorld(lado, lado, 8 * lado)
+                .agregarMeta(lado - 1, 0)
+                .setInicio(0, lado - 1);
+        int optimo = (lado - 1) * 2;
+        int estables = 0;
+        Resultado resultado = new Resultado();
+
+        long inicio = System.nanoTime();
+        for (int e = 1; e <= MAX_EPISODIOS; e++) {
+            grid.reset();
+
+            while (!grid.isDone()) {
+                int x = grid.getX(), y = grid.getY();
+                int action = agent.selectAction(x, y);
+                double reward = grid.step(action);
+
+                if (priorizado) {
+                    agent.remember(x, y, action, reward, grid.getX(), grid.getY(), grid.enMeta());
+                } else {
+                    agent.learn(x, y, action, reward, grid.getX(), grid.getY());
+                }
+                resultado.pasosEntorno++;
+            }
+
+            int steps = grid.getPasos();
+            estables = (steps <= optimo + 2) ? estables + 1 : 0;
+            if (estables >= EPISODIOS_ESTABLES) {
+                resultado.episodiosConvergencia = e;
+                break;
+            }
+        }
+        resultado.segundos = (System.nanoTime() - inicio) / 1e9;
+        resultado.actualizaciones = agent.getActualizaciones();
+        return resultado;
+    }
+
+    public static void main(String[] args) {
+        int[] lados = args.length > 0
+                ? java.util.Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{4, 8, 12, 16};
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🎯 REPLAY PRIORIZADO vs ONLINE         ║");
+        System.out.println("║  Gridworld con recompensa escasa       ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        for (int lado : lados) {
+            for (boolean priorizado : new boolean[]{false, true}) {
+                Resultado r = entrenar(lado, priorizado);
+                String convergencia = r.episodiosConvergencia > 0
+                        ? String.valueOf(r.episodiosConvergencia)
+                        : ">" + MAX_EPISODIOS;
+                System.out.println("Grid " + lado + "x" + lado +
+                        " | " + (priorizado ? "PER   " : "Online") +
+                        " | Episodios hasta converger: " + convergencia +
+                        " | Actualizaciones/s: " + String.format("%.0f", r.actualizaciones / r.segundos) +
+                        " | Pasos/s: " + String.format("%.0f", r.pasosEntorno / r.segundos) +
+                        " | Tiempo: " + String.format("%.1f", r.segundos) + " s");
+            }
+        }
+
+        System.out.println("\n✅ Benchmark terminado.");
+    }
+}
@@ -0,0 +1,243 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Cabeza de salida en dos etapas para catálogos de respuestas grandes: primero una red
+ * predice el grupo de la respuesta y después una red pequeña del grupo elige la respuesta.
+ *
+ * Con G ≈ √N grupos equilibrados, cada consulta y cada fit cuestan O(√N) en la capa de
+ * salida en lugar de O(N). Los grupos salen de un k-means sobre los centroides de entrada
+ * de cada respuesta (la media de los vectores de sus preguntas), con asignación de capacidad
+ * limitada para que ningún grupo crezca más de ⌈N/G⌉.
+ */
+public class CabezaJerarquica {
+
+    private static final int ITERACIONES_KMEANS = 8;
+    private static final int MUESTRA_KMEANS = 20_000;
+    private static final int OCULTAS_GRUPO = 64;
+    private static final double LEARNING_RATE = 0.001;
+    private static final String WS = "WS_CABEZA_JERARQUICA";
+
+    private final int numRespuestas;
+    private final int[] grupoDe;        // respuesta → grupo
+    private final int[] indiceLocal;    // respuesta → posición dentro de su grupo
+    private final int[][] miembros;     // grupo → respuestas
+    private final MultiLayerNetwork redGrupos;
+    private final MultiLayerNetwork[] redesGrupo;  // null si el grupo tiene una sola respuesta
+    private final DataType tipo;
+
+    private final INDArray objetivoGrupo;
+    private final INDArray[] objetivosLocales;
+
+    private CabezaJerarquica(int[] grupoDe, int numGrupos, int tamanoEntrada, long semilla, DataType tipo) {
+        this.numRespuestas = grupoDe.length;
+        this.grupoDe = grupoDe;
+        this.tipo = tipo;
+
+        int[] tamanos = new int[numGrupos];
+        for (int g : grupoDe) tamanos[g]++;
+        this.miembros = new int[numGrupos][];
+        for (int g = 0; g < numGrupos; g++) miembros[g] = new int[tamanos[g]];
+        this.indiceLocal = new int[numRespuestas];
+        int[] llenos = new int[numGrupos];
+        for (int r = 0; r < numRespuestas; r++) {
+            int g = grupoDe[r];
+            indiceLocal[r] = llenos[g];
+            miembros[g][llenos[g]++] = r;
+        }
+
+        this.redGrupos = ChatRLAgentV2.crearRed(numGrupos, semilla, tipo);
+        this.objetivoGrupo = Nd4j.create(tipo, 1, numGrupos);
+        this.redesGrupo = new MultiLayerNetwork[numGrupos];
+        this.objetivosLocales = new INDArray[numGrupos];
+        for (int g = 0; g < numGrupos; g++) {
+            if (tamanos[g] > 1) {
+                redesGrupo[g] = crearRedGrupo(tamanoEntrada, tamanos[g], semilla + 1 + g, tipo);
+                objetivosLocales[g] = Nd4j.create(tipo, 1, tamanos[g]);
+            }
+        }
+    }
+
+    private static MultiLayerNetwork crearRedGrupo(int entrada, int salidas, long semilla, DataType tipo) {
+        MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(tipo)
+                .updater(new Adam(LEARNING_RATE))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(entrada).nOut(OCULTAS_GRUPO)
+                        .activation(Activation.RELU).build())
+                .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX)
+                        .nOut(salidas).build())
+                .build();
+        MultiLayerNetwork red = new MultiLayerNetwork(config);
+        red.init();
+        return red;
+    }
+
+    /**
+     * Agrupa las respuestas por sus centroides de entrada (una fila por respuesta)
+     */
+    public static CabezaJerarquica construir(double[][] centroides, int numGrupos, long semilla, DataType tipo) {
+        int n = centroides.length;
+        numGrupos = Math.max(1, Math.min(numGrupos, n));
+        int[] grupoDe = agrupar(centroides, numGrupos, new Random(semilla));
+
+        // Renumerar sin grupos vacíos: la red de grupos nunca debe poder elegir uno
+        int[] nuevoId = new int[numGrupos];
+        Arrays.fill(nuevoId, -1);
+        int usados = 0;
+        for (int r = 0; r < n; r++) {
+            if (nuevoId[grupoDe[r]] < 0) nuevoId[grupoDe[r]] = usados++;
+            grupoDe[r] = nuevoId[grupoDe[r]];
+        }
+        return new CabezaJerarquica(grupoDe, usados, centroides[0].length, semilla, tipo);
+    }
+
+    /**
+     * G por defecto: √N redondeado
+     */
+    public static int gruposPorDefecto(int respuestas) {
+        return Math.max(1, (int) Math.round(Math.sqrt(respuestas)));
+    }
+
+    // k-means (sobre una muestra si N es grande) + asignación equilibrada con capacidad ⌈N/G⌉
+    static int[] agrupar(double[][] puntos, int k, Random random) {
+        int n = puntos.length, d = puntos[0].length;
+
+        int[] orden = new int[n];
+        for (int i = 0; i < n; i++) orden[i] = i;
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = orden[i]; orden[i] = orden[j]; orden[j] = t;
+        }
+        int m = Math.min(n, Math.max(k, MUESTRA_KMEANS));
+
+        double[][] centros = new double[k][];
+        for (int c = 0; c < k; c++) centros[c] = puntos[orden[c]].clone();
+        double[][] sumas = new double[k][d];
+        int[] cuentas = new int[k];
+        for (int it = 0; it < ITERACIONES_KMEANS; it++) {
+            for (double[] s : sumas) Arrays.fill(s, 0);
+            Arrays.fill(cuentas, 0);
+            for (int i = 0; i < m; i++) {
+                double[] p = puntos[orden[i]];
+                int c = masCercano(p, centros);
+                cuentas[c]++;
+                for (int j = 0; j < d; j++) sumas[c][j] += p[j];
+            }
+            for (int c = 0; c < k; c++) {
+                if (cuentas[c] == 0) continue; // centro vacío: se queda donde estaba
+                for (int j = 0; j < d; j++) centros[c][j] = sumas[c][j] / cuentas[c];
+            }
+        }
+
+        // Asignación equilibrada: cada punto (en orden aleatorio) va al centro más cercano con hueco
+        int capacidad = (n + k - 1) / k;
+        int[] ocupacion = new int[k];
+        int[] grupoDe = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] p = puntos[orden[i]];
+            int mejor = -1;
+            double dMejor = Double.MAX_VALUE;
+            for (int c = 0; c < k; c++) {
+                if (ocupacion[c] >= capacidad) continue;
+                double dist = distancia2(p, centros[c]);
+                if (dist < dMejor) {
+                    dMejor = dist;
+                    mejor = c;
+                }
+            }
+            ocupacion[mejor]++;
+            grupoDe[orden[i]] = mejor;
+        }
+        return grupoDe;
+    }
+
+    private static int masCercano(double[] p, double[][] centros) {
+        int mejor = 0;
+        double dMejor = Double.MAX_VALUE;
+        for (int c = 0; c < centros.length; c++) {
+            double dist = distancia2(p, centros[c]);
+            if (dist < dMejor) {
+                dMejor = dist;
+                mejor = c;
+            }
+        }
+        return mejor;
+    }
+
+    private static double distancia2(double[] a, double[] b) {
+        double s = 0;
+        for (int j = 0; j < a.length; j++) {
+            double t = a[j] - b[j];
+            s += t * t;
+        }
+        return s;
+    }
+
+    /**
+     * Respuesta más probable para una entrada [1, tamanoEntrada]: mejor grupo y, dentro, mejor respuesta
+     */
+    public int predecir(INDArray entrada) {
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            int g = EspacioTrabajo.argMax(redGrupos.output(entrada, false, ws));
+            if (redesGrupo[g] == null) {
+                return miembros[g][0];
+            }
+            return miembros[g][EspacioTrabajo.argMax(redesGrupo[g].output(entrada, false, ws))];
+        }
+    }
+
+    /**
+     * Un paso de entrenamiento: la red de grupos con el grupo correcto y solo la red de ese grupo
+     */
+    public void aprender(INDArray entrada, int respuesta) {
+        int g = grupoDe[respuesta];
+        objetivoGrupo.assign(0);
+        objetivoGrupo.putScalar(g, 1.0);
+        redGrupos.fit(entrada, objetivoGrupo);
+
+        if (redesGrupo[g] != null) {
+            INDArray objetivo = objetivosLocales[g];
+            objetivo.assign(0);
+            objetivo.putScalar(indiceLocal[respuesta], 1.0);
+            redesGrupo[g].fit(entrada, objetivo);
+        }
+    }
+
+    public int getNumGrupos() {
+        return miembros.length;
+    }
+
+    public int getNumRespuestas() {
+        return numRespuestas;
+    }
+
+    public DataType getTipo() {
+        return tipo;
+    }
+
+    public long numParametros() {
+        long total = redGrupos.numParams();
+        for (MultiLayerNetwork red : redesGrupo) {
+            if (red != null) total += red.numParams();
+        }
+        return total;
+    }
+}
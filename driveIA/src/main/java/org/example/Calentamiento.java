@@ -0,0 +1,183 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Fase de calentamiento antes de recibir tráfico: la primera llamada a output paga la carga
+ * de las librerías nativas de ND4J, la inicialización de BLAS y el JIT.
+ *
+ * Hace rondas de pasadas hacia delante sintéticas (y opcionalmente fit, sobre un clon para no
+ * tocar los pesos servidos) con los tamaños de lote indicados, hasta que la mediana de latencia
+ * de una ventana de rondas cambia menos de TOLERANCIA respecto a la anterior. Al terminar marca
+ * el calentamiento como listo y avisa a los callbacks registrados.
+ */
+public class Calentamiento {
+
+    private static final int VENTANA = 20;
+    private static final double TOLERANCIA = 0.10;
+    private static final int MAX_RONDAS = 2000;
+
+    /**
+     * Resultado: tiempo hasta estar listo, latencia de la primera ronda (la que habría pagado la
+     * primera petición) y latencia estable al final
+     */
+    public static final class Informe {
+        public final int rondas;
+        public final boolean estabilizado;
+        public final double msHastaListo;
+        public final double primeraRondaUs;
+        public final double rondaEstableUs;
+
+        Informe(int rondas, boolean estabilizado, double msHastaListo, double primeraRondaUs, double rondaEstableUs) {
+            this.rondas = rondas;
+            this.estabilizado = estabilizado;
+            this.msHastaListo = msHastaListo;
+            this.primeraRondaUs = primeraRondaUs;
+            this.rondaEstableUs = rondaEstableUs;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rondas (%s) | listo en %.0f ms | primera ronda %.0f µs | ronda estable %.0f µs",
+                    rondas, estabilizado ? "estable" : "límite alcanzado", msHastaListo, primeraRondaUs, rondaEstableUs);
+        }
+    }
+
+    private final boolean conFit;
+    private final int[] tamanosLote;
+    private final List<Runnable> alListo = new CopyOnWriteArrayList<>();
+    private volatile Informe informe;
+
+    /**
+     * @param conFit      si también se calientan los pasos de entrenamiento
+     * @param tamanosLote tamaños de lote representativos (por defecto, 1)
+     */
+    public Calentamiento(boolean conFit, int... tamanosLote) {
+        this.conFit = conFit;
+        this.tamanosLote = tamanosLote.length == 0 ? new int[]{1} : tamanosLote;
+    }
+
+    public boolean isListo() {
+        return informe != null;
+    }
+
+    public Informe getInforme() {
+        return informe;
+    }
+
+    /**
+     * Registra un callback para cuando termine; si ya terminó se ejecuta en el acto
+     */
+    public void alListo(Runnable callback) {
+        alListo.add(callback);
+        if (informe != null && alListo.remove(callback)) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Calienta todas las redes (p. ej. las réplicas de un servidor) y devuelve el informe
+     */
+    public Informe calentar(MultiLayerNetwork... redes) {
+        long inicio = System.nanoTime();
+        Random random = new Random(0);
+
+        // Entradas (y objetivos para fit) sintéticos por red y tamaño de lote, creados antes de medir
+        INDArray[][] entradas = new INDArray[redes.length][tamanosLote.length];
+        INDArray[][] objetivos = new INDArray[redes.length][tamanosLote.length];
+        MultiLayerNetwork[] clones = new MultiLayerNetwork[redes.length];
+        for (int r = 0; r < redes.length; r++) {
+            DataType tipo = redes[r].getLayerWiseConfigurations().getDataType();
+            int nIn = (int) redes[r].layerInputSize(0);
+            int nOut = (int) redes[r].layerSize(redes[r].getnLayers() - 1);
+            for (int b = 0; b < tamanosLote.length; b++) {
+                entradas[r][b] = Nd4j.create(tipo, tamanosLote[b], nIn);
+                objetivos[r][b] = Nd4j.create(tipo, tamanosLote[b], nOut);
+                for (int i = 0; i < tamanosLote[b]; i++) {
+                    for (int j = 0; j < nIn; j++) entradas[r][b].putScalar(i, j, random.nextBoolean() ? 1.0 : 0.0);
+                    objetivos[r][b].putScalar(i, random.nextInt(nOut), 1.0);
+                }
+            }
+            if (conFit) clones[r] = redes[r].clone();
+        }
+
+        double[] ventana = new double[VENTANA];
+        double medianaAnterior = -1, mediana = 0, primera = 0;
+        boolean estable = false;
+        int rondas = 0;
+        while (rondas < MAX_RONDAS && !estable) {
+            long t = System.nanoTime();
+            for (int r = 0; r < redes.length; r++) {
+                for (int b = 0; b < tamanosLote.length; b++) {
+                    redes[r].output(entradas[r][b], false);
+                    if (conFit) clones[r].fit(entradas[r][b], objetivos[r][b]);
+                }
+            }
+            double us = (System.nanoTime() - t) / 1e3;
+            if (rondas == 0) primera = us;
+            ventana[rondas % VENTANA] = us;
+            rondas++;
+
+            if (rondas % VENTANA == 0) {
+                double[] ordenada = ventana.clone();
+                Arrays.sort(ordenada);
+                mediana = ordenada[VENTANA / 2];
+                estable = medianaAnterior > 0 && Math.abs(mediana - medianaAnterior) <= TOLERANCIA * medianaAnterior;
+                medianaAnterior = mediana;
+            }
+        }
+
+        Informe resultado = new Informe(rondas, estable, (System.nanoTime() - inicio) / 1e6, primera, mediana);
+        informe = resultado;
+        for (Runnable callback : alListo) {
+            if (alListo.remove(callback)) callback.run();
+        }
+        return resultado;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean sinCalentamiento = args.length > 0 && args[0].equals("--sin-calentamiento");
+        long arranque = System.nanoTime();
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🌡️ CALENTAMIENTO Y DISPONIBILIDAD      ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        ChatRLAgentV2 agente = new ChatRLAgentV2(42L);
+        agente.inicializarRed();
+        agente.disableExploration();
+
+        if (!sinCalentamiento) {
+            Calentamiento calentamiento = new Calentamiento(true, 1, 32);
+            calentamiento.alListo(() -> System.out.println("✅ Listo para servir (" +
+                    String.format("%.0f", (System.nanoTime() - arranque) / 1e6) + " ms desde el arranque)"));
+            System.out.println("🔥 " + calentamiento.calentar(agente.getModel()));
+        }
+
+        // Primera petición real frente a las siguientes
+        List<String> preguntas = List.copyOf(ChatRLAgentV2.getRespuestasCorrectas().keySet());
+        long t = System.nanoTime();
+        agente.selectResponse(preguntas.get(0));
+        double primeraUs = (System.nanoTime() - t) / 1e3;
+        double[] siguientes = new double[1000];
+        for (int i = 0; i < siguientes.length; i++) {
+            t = System.nanoTime();
+            agente.selectResponse(preguntas.get(1 + i % (preguntas.size() - 1)));
+            siguientes[i] = (System.nanoTime() - t) / 1e3;
+        }
+        Arrays.sort(siguientes);
+
+        System.out.println(String.format("\n📊 %s | primera petición %.0f µs | siguientes p50 %.0f µs, p99 %.0f µs",
+                sinCalentamiento ? "Sin calentamiento" : "Con calentamiento", primeraUs,
+                ArnesMultiSemilla.percentil(siguientes, 50), ArnesMultiSemilla.percentil(siguientes, 99)));
+    }
+}
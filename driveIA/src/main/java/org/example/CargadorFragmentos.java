@@ -0,0 +1,235 @@
+package org.example;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Carga un banco de preguntas exportado en muchos fragmentos JSON (mismo formato que
+ * preguntas.json) a partir de un directorio o de un patrón glob ("datos/preguntas-*.json").
+ *
+ * Cada fragmento se lee y se parsea en un ForkJoinPool; la fusión es secuencial y sigue el orden
+ * de los nombres de archivo, así que los ids de respuesta (su posición en la lista de respuestas
+ * únicas) y las preguntas repetidas (gana la del último fragmento) no dependen de qué hilo
+ * terminó antes.
+ */
+public class CargadorFragmentos {
+
+    /**
+     * Un fragmento ya parseado y lo que tardó (lectura + parseo)
+     */
+    public static final class Fragmento {
+        public final Path ruta;
+        final String[] preguntas;
+        final String[] respuestas;
+        public final long nanos;
+
+        Fragmento(Path ruta, String[] preguntas, String[] respuestas, long nanos) {
+            this.ruta = ruta;
+            this.preguntas = preguntas;
+            this.respuestas = respuestas;
+            this.nanos = nanos;
+        }
+
+        public int pares() {
+            return preguntas.length;
+        }
+    }
+
+    public static final class Resultado {
+        public final Map<String, String> respuestasCorrectas;
+        public final List<String> respuestasUnicas;
+        public final List<Fragmento> fragmentos;
+        public final long nanosTotales;
+
+        Resultado(Map<String, String> respuestasCorrectas, List<String> respuestasUnicas,
+                  List<Fragmento> fragmentos, long nanosTotales) {
+            this.respuestasCorrectas = respuestasCorrectas;
+            this.respuestasUnicas = respuestasUnicas;
+            this.fragmentos = fragmentos;
+            this.nanosTotales = nanosTotales;
+        }
+    }
+
+    /**
+     * Los .json de un directorio, o los archivos que casan con un glob, ordenados por nombre
+     */
+    static List<Path> listar(String ruta) throws IOException {
+        Path directorio;
+        PathMatcher patron;
+        Path comoRuta = esGlob(ruta) ? null : Paths.get(ruta);
+        if (comoRuta != null && Files.isDirectory(comoRuta)) {
+            directorio = comoRuta;
+            patron = FileSystems.getDefault().getPathMatcher("glob:*.json");
+        } else {
+            // El directorio es lo que queda antes del primer componente con comodines
+            int corte = ruta.replace('\\', '/').lastIndexOf('/', primerComodin(ruta));
+            directorio = Paths.get(corte < 0 ? "." : ruta.substring(0, Math.max(corte, 1)));
+            patron = FileSystems.getDefault().getPathMatcher("glob:" + ruta.substring(corte + 1));
+        }
+
+        List<Path> rutas = new ArrayList<>();
+        try (Stream<Path> archivos = Files.walk(directorio)) {
+            archivos.filter(Files::isRegularFile)
+                    .filter(p -> patron.matches(directorio.relativize(p)))
+                    .forEach(rutas::add);
+        }
+        rutas.sort(Comparator.comparing(p -> directorio.relativize(p).toString()));
+        return rutas;
+    }
+
+    static boolean esGlob(String ruta) {
+        return primerComodin(ruta) < ruta.length();
+    }
+
+    private static int primerComodin(String ruta) {
+        for (int i = 0; i < ruta.length(); i++) {
+            if ("*?[{".indexOf(ruta.charAt(i)) >= 0) return i;
+        }
+        return ruta.length();
+    }
+
+    static Fragmento parsear(Path ruta) {
+        long inicio = System.nanoTime();
+        try {
+            JSONArray jsonArray = new JSONArray(new String(Files.readAllBytes(ruta), StandardCharsets.UTF_8));
+            String[] preguntas = new String[jsonArray.length()];
+            String[] respuestas = new String[jsonArray.length()];
+            for (int i = 0; i < jsonArray.length(); i++) {
+                JSONObject obj = jsonArray.getJSONObject(i);
+                preguntas[i] = obj.getString("pregunta").toLowerCase().trim();
+                respuestas[i] = obj.getString("respuesta").toLowerCase().trim();
+            }
+            return new Fragmento(ruta, preguntas, respuestas, System.nanoTime() - inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException(ruta.toString(), e);
+        }
+    }
+
+    /**
+     * Parsea en paralelo todos los fragmentos de "ruta" y los fusiona en orden de nombre
+     */
+    public static Resultado cargar(String ruta, ForkJoinPool pool) throws IOException {
+        long inicio = System.nanoTime();
+        List<Path> rutas = listar(ruta);
+        if (rutas.isEmpty()) throw new NoSuchFileException(ruta, null, "ningún fragmento JSON");
+
+        List<Callable<Fragmento>> tareas = new ArrayList<>();
+        for (Path p : rutas) tareas.add(() -> parsear(p));
+        List<Fragmento> fragmentos = new ArrayList<>();
+        try {
+            for (Future<Fragmento> f : pool.invokeAll(tareas)) fragmentos.add(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Carga interrumpida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw new IOException(e.getCause());
+        }
+
+        Map<String, String> respuestasCorrectas = new LinkedHashMap<>();
+        List<String> respuestasUnicas = new ArrayList<>();
+        Set<String> vistas = new HashSet<>();
+        for (Fragmento f : fragmentos) {
+            for (int i = 0; i < f.preguntas.length; i++) {
+                respuestasCorrectas.put(f.preguntas[i], f.respuestas[i]);
+                if (vistas.add(f.respuestas[i])) respuestasUnicas.add(f.respuestas[i]);
+            }
+        }
+        return new Resultado(respuestasCorrectas, respuestasUnicas, fragmentos, System.nanoTime() - inicio);
+    }
+
+    /**
+     * Escribe "fragmentos" archivos de "paresPorFragmento" pares sintéticos en "directorio"
+     */
+    static void generarFragmentos(Path directorio, int fragmentos, int paresPorFragmento, int respuestas,
+                                  long semilla) throws IOException {
+        Files.createDirectories(directorio);
+        Random random = new Random(semilla);
+        for (int f = 0; f < fragmentos; f++) {
+            JSONArray pares = new JSONArray();
+            for (int i = 0; i < paresPorFragmento; i++) {
+                StringBuilder pregunta = new StringBuilder("pregunta ").append(f).append(' ').append(i);
+                for (int k = 0; k < 6; k++) pregunta.append(' ').append((char) ('a' + random.nextInt(26)));
+                pares.put(new JSONObject()
+                        .put("pregunta", pregunta.toString())
+                        .put("respuesta", "respuesta " + random.nextInt(respuestas)));
+            }
+            Files.write(directorio.resolve(String.format("preguntas-%04d.json", f)),
+                    pares.toString(1).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void informe(Resultado r, int hilos, double msSecuencial) {
+        double ms = r.nanosTotales / 1e6;
+        System.out.println(String.format("  %2d hilos | %8.1f ms | x%5.2f | %d pares, %d respuestas únicas",
+                hilos, ms, msSecuencial / ms, r.respuestasCorrectas.size(), r.respuestasUnicas.size()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int maxHilos = Runtime.getRuntime().availableProcessors();
+        String ruta;
+        Path temporal = null;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🗂️ CARGA PARALELA DE FRAGMENTOS JSON   ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        if (args.length > 0) {
+            ruta = args[0];
+        } else {
+            temporal = Files.createTempDirectory("fragmentos-");
+            generarFragmentos(temporal, 200, 2000, 5000, 42L);
+            ruta = temporal.resolve("preguntas-*.json").toString();
+            System.out.println("⚙️ Sin ruta: 200 fragmentos sintéticos de 2000 pares en " + temporal + "\n");
+        }
+
+        // Una pasada para calentar el JIT y la caché de disco, luego 1, 2, 4... hilos
+        cargar(ruta, ForkJoinPool.commonPool());
+        Resultado referencia = null;
+        double msSecuencial = 0;
+        for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(hilos);
+            Resultado r;
+            try {
+                r = cargar(ruta, pool);
+            } finally {
+                pool.shutdown();
+            }
+            if (referencia == null) {
+                referencia = r;
+                msSecuencial = r.nanosTotales / 1e6;
+            } else if (!r.respuestasUnicas.equals(referencia.respuestasUnicas)) {
+                throw new IllegalStateException("Los ids de respuesta cambiaron con " + hilos + " hilos");
+            }
+            informe(r, hilos, msSecuencial);
+        }
+        System.out.println("  ✅ Mismos ids de respuesta con cualquier número de hilos\n");
+
+        // Tiempo de parseo por fragmento (de la pasada con un hilo: sin competencia entre hilos)
+        List<Fragmento> porTiempo = new ArrayList<>(referencia.fragmentos);
+        porTiempo.sort(Comparator.comparingLong((Fragmento f) -> f.nanos).reversed());
+        long[] nanos = porTiempo.stream().mapToLong(f -> f.nanos).sorted().toArray();
+        System.out.println(String.format("⏱️ Parseo por fragmento: mín %.2f ms | p50 %.2f ms | máx %.2f ms",
+                nanos[0] / 1e6, nanos[nanos.length / 2] / 1e6, nanos[nanos.length - 1] / 1e6));
+        for (Fragmento f : porTiempo.subList(0, Math.min(5, porTiempo.size()))) {
+            System.out.println(String.format("  %-28s %6d pares %8.2f ms", f.ruta.getFileName(), f.pares(), f.nanos / 1e6));
+        }
+
+        if (temporal != null) {
+            try (Stream<Path> archivos = Files.walk(temporal)) {
+                archivos.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
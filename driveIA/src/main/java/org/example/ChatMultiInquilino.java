@@ -0,0 +1,456 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+
+/**
+ * Un chat por cliente (inquilino) sin una red completa por cliente: todos comparten la misma
+ * red base congelada (las capas ocultas de un ChatRLAgentV2 entrenado, 26→256→128→64) y cada
+ * inquilino solo tiene una cabeza softmax pequeña 64→K sobre sus propias respuestas.
+ *
+ * Las cabezas se cargan bajo demanda desde disco y se desalojan en orden LRU cuando la memoria
+ * que ocupan supera el presupuesto (las modificadas se guardan antes). aprenderNuevoParPreguntaRespuesta
+ * solo entrena la cabeza del inquilino: la base nunca se toca.
+ *
+ * El mapa solo se bloquea para decidir: las lecturas y escrituras en disco se hacen fuera, así
+ * que la carga de un inquilino no frena a los demás. Una cabeza desalojada sigue localizable
+ * hasta que termina de guardarse (y se reutiliza si se vuelve a pedir), de modo que nunca hay
+ * dos copias vivas del mismo inquilino.
+ */
+public class ChatMultiInquilino {
+
+    private static final int EPOCAS_AJUSTE = 5;
+    private static final float TASA = 0.1f;
+
+    /**
+     * Cabeza de un inquilino: sus respuestas, los pesos 64→K y sus pares (guardados ya como
+     * características de la base, para reentrenar sin volver a pasar por ella)
+     */
+    static final class Adaptador {
+        final int dimension;
+        final List<String> respuestas = new ArrayList<>();
+        final Map<String, Integer> indice = new HashMap<>();
+        final List<String> preguntas = new ArrayList<>();
+        final List<float[]> caracteristicas = new ArrayList<>();
+        int[] etiquetas = new int[8];
+        float[] w = new float[0];   // [K][dimension]
+        float[] b = new float[0];
+        boolean modificado;
+        long bytesContados;  // lo que suma en bytesEnMemoria; protegido por el mapa
+
+        Adaptador(int dimension) {
+            this.dimension = dimension;
+        }
+
+        int respuesta(String texto) {
+            Integer id = indice.get(texto);
+            if (id != null) return id;
+            id = respuestas.size();
+            respuestas.add(texto);
+            indice.put(texto, id);
+            // Una fila nueva de pesos a cero: el resto de la cabeza no cambia
+            w = Arrays.copyOf(w, (id + 1) * dimension);
+            b = Arrays.copyOf(b, id + 1);
+            return id;
+        }
+
+        void agregarPar(String pregunta, float[] h, int etiqueta) {
+            if (preguntas.size() == etiquetas.length) etiquetas = Arrays.copyOf(etiquetas, etiquetas.length * 2);
+            etiquetas[preguntas.size()] = etiqueta;
+            preguntas.add(pregunta);
+            caracteristicas.add(h);
+        }
+
+        private double[] puntuaciones(float[] h) {
+            int k = respuestas.size();
+            double[] z = new double[k];
+            for (int r = 0; r < k; r++) {
+                double s = b[r];
+                int base = r * dimension;
+                for (int j = 0; j < dimension; j++) s += w[base + j] * h[j];
+                z[r] = s;
+            }
+            return z;
+        }
+
+        int predecir(float[] h) {
+            double[] z = puntuaciones(h);
+            int mejor = 0;
+            for (int r = 1; r < z.length; r++) if (z[r] > z[mejor]) mejor = r;
+            return mejor;
+        }
+
+        // Un paso de SGD con softmax + entropía cruzada
+        void paso(float[] h, int etiqueta) {
+            double[] z = puntuaciones(h);
+            double max = Double.NEGATIVE_INFINITY;
+            for (double v : z) max = Math.max(max, v);
+            double suma = 0;
+            for (int r = 0; r < z.length; r++) {
+                z[r] = Math.exp(z[r] - max);
+                suma += z[r];
+            }
+            for (int r = 0; r < z.length; r++) {
+                float g = (float) (TASA * (z[r] / suma - (r == etiqueta ? 1 : 0)));
+                int base = r * dimension;
+                for (int j = 0; j < dimension; j++) w[base + j] -= g * h[j];
+                b[r] -= g;
+            }
+        }
+
+        long bytes() {
+            long texto = 0;
+            for (String s : respuestas) texto += 40 + 2L * s.length();
+            for (String s : preguntas) texto += 40 + 2L * s.length();
+            return 4L * (w.length + b.length + etiquetas.length)
+                    + (long) caracteristicas.size() * (16 + 4L * dimension) + 2 * texto;
+        }
+
+        void guardar(DataOutputStream out) throws IOException {
+            out.writeInt(respuestas.size());
+            for (String r : respuestas) out.writeUTF(r);
+            for (float v : w) out.writeFloat(v);
+            for (float v : b) out.writeFloat(v);
+            out.writeInt(preguntas.size());
+            for (int i = 0; i < preguntas.size(); i++) {
+                out.writeUTF(preguntas.get(i));
+                out.writeInt(etiquetas[i]);
+            }
+        }
+    }
+
+    private final MultiLayerNetwork base;
+    private final int capaCaracteristicas;
+    private final int dimension;
+    private final Path directorio;
+    private final long presupuestoBytes;
+
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    // Todo protegido por "this". Orden de bloqueo: cabeza → mapa, nunca al revés.
+    private final LinkedHashMap<String, Adaptador> enMemoria = new LinkedHashMap<>(16, 0.75f, true);  // LRU
+    private final Map<String, CompletableFuture<Adaptador>> cargando = new HashMap<>();
+    private final Map<String, Adaptador> desalojados = new HashMap<>();  // fuera del LRU, guardándose
+    private long bytesEnMemoria;
+    private long cargas, desalojos;
+
+    /**
+     * @param base             red entrenada de ChatRLAgentV2; se usa hasta la penúltima capa y no se entrena
+     * @param directorio       dónde se guardan las cabezas desalojadas
+     * @param presupuestoBytes memoria máxima para las cabezas en memoria
+     */
+    public ChatMultiInquilino(MultiLayerNetwork base, Path directorio, long presupuestoBytes) throws IOException {
+        this.base = base;
+        this.capaCaracteristicas = base.getnLayers() - 2;
+        this.dimension = (int) base.layerSize(capaCaracteristicas);
+        this.directorio = directorio;
+        this.presupuestoBytes = presupuestoBytes;
+        Files.createDirectories(directorio);
+    }
+
+    private float[] caracteristicas(String pregunta) {
+        INDArray entrada = Nd4j.create(new double[][]{ChatRLAgentV2.preguntaAVector(pregunta)});
+        List<INDArray> activaciones;
+        // MultiLayerNetwork no es seguro entre hilos; la base es pequeña y solo hace inferencia
+        synchronized (base) {
+            activaciones = base.feedForwardToLayer(capaCaracteristicas, entrada, false);
+        }
+        return activaciones.get(activaciones.size() - 1).toFloatVector();
+    }
+
+    private Path archivo(String inquilino) {
+        return directorio.resolve("inquilino-" + inquilino + ".bin");
+    }
+
+    // El id va en el nombre del archivo: nada de separadores ni ".."
+    private static void validar(String inquilino) {
+        if (inquilino == null || !ID_VALIDO.matcher(inquilino).matches()) {
+            throw new IllegalArgumentException("Id de inquilino no válido (solo [A-Za-z0-9_-], hasta 64): " + inquilino);
+        }
+    }
+
+    private Adaptador cargar(String inquilino) throws IOException {
+        Adaptador adaptador = new Adaptador(dimension);
+        Path ruta = archivo(inquilino);
+        if (!Files.exists(ruta)) {
+            return adaptador;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            int k = in.readInt();
+            for (int r = 0; r < k; r++) adaptador.respuesta(in.readUTF());
+            for (int i = 0; i < adaptador.w.length; i++) adaptador.w[i] = in.readFloat();
+            for (int i = 0; i < adaptador.b.length; i++) adaptador.b[i] = in.readFloat();
+            int pares = in.readInt();
+            for (int i = 0; i < pares; i++) {
+                String pregunta = in.readUTF();
+                // La base está congelada: las características se pueden recalcular
+                adaptador.agregarPar(pregunta, caracteristicas(pregunta), in.readInt());
+            }
+        }
+        return adaptador;
+    }
+
+    private void guardar(String inquilino, Adaptador adaptador) throws IOException {
+        Path temporal = archivo(inquilino + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            adaptador.guardar(out);
+        }
+        Files.move(temporal, archivo(inquilino), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        adaptador.modificado = false;
+    }
+
+    /**
+     * La cabeza del inquilino: de memoria, de las que se están guardando o desde disco. La lectura
+     * del archivo y el guardado de las que se desalojan se hacen sin bloquear el mapa.
+     */
+    private Adaptador obtener(String inquilino) throws IOException {
+        CompletableFuture<Adaptador> carga;
+        boolean cargoYo = false;
+        Adaptador reutilizada;
+        List<Map.Entry<String, Adaptador>> victimas;
+        synchronized (this) {
+            Adaptador adaptador = enMemoria.get(inquilino);
+            if (adaptador != null) return adaptador;
+            // Si todavía no se había terminado de guardar se reutiliza la misma instancia
+            reutilizada = desalojados.remove(inquilino);
+            victimas = reutilizada != null ? insertar(inquilino, reutilizada) : null;
+            carga = cargando.get(inquilino);
+            if (reutilizada == null && carga == null) {
+                carga = new CompletableFuture<>();
+                cargando.put(inquilino, carga);
+                cargoYo = true;
+            }
+        }
+
+        if (reutilizada != null) {
+            guardarFueraDelMapa(victimas);
+            return reutilizada;
+        }
+        if (!cargoYo) return esperar(carga);
+
+        Adaptador adaptador;
+        try {
+            adaptador = cargar(inquilino);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                cargando.remove(inquilino);
+            }
+            carga.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            cargando.remove(inquilino);
+            cargas++;
+            victimas = insertar(inquilino, adaptador);
+        }
+        carga.complete(adaptador);
+        guardarFueraDelMapa(victimas);
+        return adaptador;
+    }
+
+    private static Adaptador esperar(CompletableFuture<Adaptador> carga) throws IOException {
+        try {
+            return carga.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Carga de inquilino interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // Llamar con "this" bloqueado. Devuelve las cabezas desalojadas, que hay que guardar fuera.
+    private List<Map.Entry<String, Adaptador>> insertar(String inquilino, Adaptador adaptador) {
+        adaptador.bytesContados = adaptador.bytes();
+        enMemoria.put(inquilino, adaptador);
+        bytesEnMemoria += adaptador.bytesContados;
+        return desalojar(inquilino);
+    }
+
+    // Saca los menos usados hasta volver al presupuesto (nunca el que se está usando)
+    private List<Map.Entry<String, Adaptador>> desalojar(String protegido) {
+        List<Map.Entry<String, Adaptador>> victimas = new ArrayList<>();
+        Iterator<Map.Entry<String, Adaptador>> it = enMemoria.entrySet().iterator();
+        while (bytesEnMemoria > presupuestoBytes && it.hasNext()) {
+            Map.Entry<String, Adaptador> entrada = it.next();
+            if (entrada.getKey().equals(protegido)) continue;
+            bytesEnMemoria -= entrada.getValue().bytesContados;
+            desalojados.put(entrada.getKey(), entrada.getValue());
+            victimas.add(new AbstractMap.SimpleEntry<>(entrada.getKey(), entrada.getValue()));
+            it.remove();
+            desalojos++;
+        }
+        return victimas;
+    }
+
+    /**
+     * Guarda las cabezas desalojadas y las quita de "desalojados". Se hace con la cabeza bloqueada
+     * para que un entrenamiento en curso termine antes y ninguno empiece sobre una copia huérfana.
+     */
+    private void guardarFueraDelMapa(List<Map.Entry<String, Adaptador>> victimas) throws IOException {
+        for (Map.Entry<String, Adaptador> victima : victimas) {
+            Adaptador adaptador = victima.getValue();
+            synchronized (adaptador) {
+                if (adaptador.modificado) guardar(victima.getKey(), adaptador);
+                synchronized (this) {
+                    desalojados.remove(victima.getKey(), adaptador);
+                }
+            }
+        }
+    }
+
+    // Con la cabeza bloqueada: ¿sigue siendo la instancia del inquilino?
+    private synchronized boolean viva(String inquilino, Adaptador adaptador) {
+        return enMemoria.get(inquilino) == adaptador || desalojados.get(inquilino) == adaptador;
+    }
+
+    public String responder(String inquilino, String pregunta) throws IOException {
+        validar(inquilino);
+        float[] h = caracteristicas(pregunta.toLowerCase().trim());
+        Adaptador adaptador = obtener(inquilino);
+        synchronized (adaptador) {
+            return adaptador.respuestas.isEmpty() ? "no entiendo" : adaptador.respuestas.get(adaptador.predecir(h));
+        }
+    }
+
+    /**
+     * Aprende un par para un inquilino: solo se entrena (y se hace crecer) su cabeza
+     */
+    public void aprenderNuevoParPreguntaRespuesta(String inquilino, String pregunta, String respuesta) throws IOException {
+        validar(inquilino);
+        pregunta = pregunta.toLowerCase().trim();
+        respuesta = respuesta.toLowerCase().trim();
+        float[] h = caracteristicas(pregunta);
+        while (true) {
+            Adaptador adaptador = obtener(inquilino);
+            long despues;
+            synchronized (adaptador) {
+                // Si se desalojó y ya se guardó entre obtener() y aquí, hay que trabajar con la nueva
+                if (!viva(inquilino, adaptador)) continue;
+                adaptador.agregarPar(pregunta, h, adaptador.respuesta(respuesta));
+                int n = adaptador.preguntas.size();
+                for (int ep = 0; ep < EPOCAS_AJUSTE; ep++) {
+                    for (int i = n - 1; i >= 0; i--) {
+                        adaptador.paso(adaptador.caracteristicas.get(i), adaptador.etiquetas[i]);
+                    }
+                }
+                adaptador.modificado = true;
+                despues = adaptador.bytes();
+            }
+            // Si entretanto se desalojó, quien la desalojó la guarda después de este entrenamiento
+            List<Map.Entry<String, Adaptador>> victimas = Collections.emptyList();
+            synchronized (this) {
+                if (enMemoria.get(inquilino) == adaptador) {
+                    bytesEnMemoria += despues - adaptador.bytesContados;
+                    adaptador.bytesContados = despues;
+                    victimas = desalojar(inquilino);
+                }
+            }
+            guardarFueraDelMapa(victimas);
+            return;
+        }
+    }
+
+    /**
+     * Guarda en disco todas las cabezas modificadas que siguen en memoria
+     */
+    public void guardarTodo() throws IOException {
+        List<Map.Entry<String, Adaptador>> copia;
+        synchronized (this) {
+            copia = new ArrayList<>();
+            for (Map.Entry<String, Adaptador> entrada : enMemoria.entrySet()) {
+                copia.add(new AbstractMap.SimpleEntry<>(entrada.getKey(), entrada.getValue()));
+            }
+        }
+        for (Map.Entry<String, Adaptador> entrada : copia) {
+            synchronized (entrada.getValue()) {
+                if (entrada.getValue().modificado) guardar(entrada.getKey(), entrada.getValue());
+            }
+        }
+    }
+
+    public synchronized int getInquilinosEnMemoria() {
+        return enMemoria.size();
+    }
+
+    public synchronized long getBytesEnMemoria() {
+        return bytesEnMemoria;
+    }
+
+    public synchronized long getCargas() {
+        return cargas;
+    }
+
+    public synchronized long getDesalojos() {
+        return desalojos;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int inquilinos = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int paresPorInquilino = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long presupuesto = (args.length > 2 ? Long.parseLong(args[2]) : 8) * 1024 * 1024;
+        Path directorio = Paths.get("inquilinos");
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🏢 CHAT MULTI-INQUILINO                ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        // Red base compartida: un ChatRLAgentV2 entrenado con el dataset general
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        ChatRLAgentV2 general = new ChatRLAgentV2(42L);
+        general.inicializarRed();
+        for (int ep = 0; ep < 50; ep++) general.entrenarEpoca();
+        MultiLayerNetwork base = general.getModel();
+        long bytesAgenteCompleto = base.numParams() * base.params().dataType().width() +
+                base.getUpdater().getStateViewArray().length() * base.params().dataType().width();
+
+        ChatMultiInquilino chat = new ChatMultiInquilino(base, directorio, presupuesto);
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+        Random random = new Random(42);
+
+        // Cada inquilino aprende su propio subconjunto de pares
+        int[][] asignados = new int[inquilinos][paresPorInquilino];
+        long inicio = System.nanoTime();
+        for (int t = 0; t < inquilinos; t++) {
+            for (int i = 0; i < paresPorInquilino; i++) {
+                asignados[t][i] = random.nextInt(pares.size());
+                Map.Entry<String, String> par = pares.get(asignados[t][i]);
+                chat.aprenderNuevoParPreguntaRespuesta("t" + t, par.getKey(), par.getValue());
+            }
+        }
+        double segAprender = (System.nanoTime() - inicio) / 1e9;
+
+        // Tráfico aleatorio: cada consulta a un inquilino cualquiera (muchas cargas desde disco)
+        int consultas = 20_000, aciertos = 0;
+        inicio = System.nanoTime();
+        for (int q = 0; q < consultas; q++) {
+            int t = random.nextInt(inquilinos);
+            Map.Entry<String, String> par = pares.get(asignados[t][random.nextInt(paresPorInquilino)]);
+            if (chat.responder("t" + t, par.getKey()).equals(par.getValue())) aciertos++;
+        }
+        double usConsulta = (System.nanoTime() - inicio) / 1e3 / consultas;
+
+        System.out.println(String.format("👥 %d inquilinos × %d pares | aprendizaje %.1f s (%.0f µs/par)",
+                inquilinos, paresPorInquilino, segAprender, segAprender * 1e6 / (inquilinos * paresPorInquilino)));
+        System.out.println(String.format("💾 En memoria: %d inquilinos, %.1f MB de %.1f MB | cargas %d | desalojos %d",
+                chat.getInquilinosEnMemoria(), chat.getBytesEnMemoria() / 1048576.0, presupuesto / 1048576.0,
+                chat.getCargas(), chat.getDesalojos()));
+        System.out.println(String.format("📏 Por inquilino ≈ %.1f KB frente a %.1f KB de un ChatRLAgentV2 completo (%d inquilinos = %.0f MB)",
+                chat.getBytesEnMemoria() / 1024.0 / Math.max(1, chat.getInquilinosEnMemoria()), bytesAgenteCompleto / 1024.0,
+                inquilinos, inquilinos * bytesAgenteCompleto / 1048576.0));
+        System.out.println(String.format("🎯 Consultas aleatorias: precisión %.1f%% | %.0f µs/consulta (incluye cargas)",
+                aciertos * 100.0 / consultas, usConsulta));
+    }
+}
@@ -6,6 +6,7 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
@@ -39,8 +40,20 @@ public class ChatRLAgent {
     private Map<String, Integer> respuestaAIndice = new HashMap<>();
     private int ACTIONS;
 
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo); el objetivo depende de ACTIONS
+    private static final String WS = "WS_CHAT_AGENT";
+    private final Precision precision;
+    private final INDArray entrada;
+    private INDArray objetivo;
+
     public ChatRLAgent() {
         // Se inicializa después de cargar JSON
+        this(Precision.FP32);
+    }
+
+    public ChatRLAgent(Precision precision) {
+        this.precision = precision;
+        this.entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
     }
 
     /**
@@ -88,6 +101,7 @@ public class ChatRLAgent {
 
         // Construir red neuronal dinámicamente
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .dataType(precision.tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(256)
@@ -105,23 +119,6 @@ public class ChatRLAgent {
         model.init();
     }
 
-    /**
-     * Convierte una pregunta a vector: UNA NEURONA POR LETRA
-     */
-    private double[] preguntaAVector(String pregunta) {
-        double[] vector = new double[STATE_SIZE];
-        pregunta = pregunta.toLowerCase().replaceAll("[^a-z]", "");
-
-        for (char c : pregunta.toCharArray()) {
-            if (c >= 'a' && c <= 'z') {
-                int indice = c - 'a';
-                vector[indice] = 1.0;
-            }
-        }
-
-        return vector;
-    }
-
     /**
      * Selecciona una respuesta basada en la pregunta
      */
@@ -130,10 +127,11 @@ public class ChatRLAgent {
             return RESPUESTAS_UNICAS.get(random.nextInt(RESPUESTAS_UNICAS.size()));
         }
 
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray output = model.output(input);
-        int respuestaIndex = Nd4j.argMax(output, 1).getInt(0);
+        EspacioTrabajo.letrasPresentes(pregunta, entrada);
+        int respuestaIndex;
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            respuestaIndex = EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
 
         return RESPUESTAS_UNICAS.get(respuestaIndex);
     }
@@ -170,21 +168,21 @@ public class ChatRLAgent {
      * El agente aprende de la pregunta y la respuesta
      */
     public void learn(String pregunta, String respuestaGenerada, String respuestaCorrecta) {
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
+        EspacioTrabajo.letrasPresentes(pregunta, entrada);
 
-        double[] targetArray = new double[ACTIONS];
+        if (objetivo == null || objetivo.columns() != ACTIONS) {
+            objetivo = Nd4j.create(precision.tipo, 1, ACTIONS);
+        }
         Integer indiceCorrecta = respuestaAIndice.get(respuestaCorrecta);
         if (indiceCorrecta == null) {
             indiceCorrecta = 0;
         }
-        targetArray[indiceCorrecta] = 1.0;
-
-        INDArray target = Nd4j.create(new double[][]{targetArray});
+        objetivo.assign(0);
+        objetivo.putScalar(indiceCorrecta, 1.0);
 
         double reward = calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
 
-        model.fit(input, target);
+        model.fit(entrada, objetivo);
         epsilon *= EPSILON_DECAY;
 
         if (reward > 5) {
@@ -197,6 +195,14 @@ public class ChatRLAgent {
         epsilon = 0.0;
     }
 
+    double getEpsilon() {
+        return epsilon;
+    }
+
+    void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
     public static void main(String[] args) {
         // Cargar preguntas desde JSON
         String rutaJSON = "preguntas.json";
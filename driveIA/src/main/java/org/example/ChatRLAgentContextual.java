@@ -0,0 +1,263 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.*;
+
+/**
+ * Chat con contexto pasado: la entrada de la red son las 26 letras de la pregunta actual más
+ * la media de las letras de las últimas K preguntas de la misma conversación (26 + 26 → 128 →
+ * 64 → N). El contexto sale de un AlmacenSesiones, así que la memoria por conversación es fija.
+ *
+ * Sirve para preguntas de seguimiento ("cuentame mas", "y el precio") cuya respuesta depende
+ * del tema de los turnos anteriores y que un agente sin estado no puede distinguir.
+ */
+public class ChatRLAgentContextual {
+
+    private static final int LETRAS = 26;
+    private static final double LEARNING_RATE = 0.001;
+    private static final double EPSILON_DECAY = 0.995;
+    private static final String WS = "WS_CHAT_CONTEXTUAL";
+
+    private final List<String> respuestas;
+    private final Map<String, Integer> respuestaAIndice = new HashMap<>();
+    private final AlmacenSesiones sesiones;
+    private final MultiLayerNetwork model;
+    private final Random random;
+    private double epsilon = 1.0;
+
+    // Buffers reutilizados en cada paso: no es seguro entre hilos, como ChatRLAgentV2
+    private final INDArray entrada;
+    private final INDArray objetivo;
+    private final float[] letras = new float[LETRAS];
+    private final float[] contexto = new float[LETRAS];
+
+    /**
+     * sesiones == null: el mismo agente sin contexto (la mitad de la entrada siempre a cero)
+     */
+    public ChatRLAgentContextual(List<String> respuestas, AlmacenSesiones sesiones, long semilla) {
+        if (sesiones != null && sesiones.getDimension() != LETRAS) {
+            throw new IllegalArgumentException("El almacén debe guardar vectores de " + LETRAS + " letras");
+        }
+        this.respuestas = new ArrayList<>(respuestas);
+        for (int i = 0; i < this.respuestas.size(); i++) respuestaAIndice.put(this.respuestas.get(i), i);
+        this.sesiones = sesiones;
+        this.random = new Random(semilla);
+        this.model = crearRed(this.respuestas.size(), semilla, DataType.FLOAT);
+        this.entrada = Nd4j.create(DataType.FLOAT, 1, 2 * LETRAS);
+        this.objetivo = Nd4j.create(DataType.FLOAT, 1, this.respuestas.size());
+    }
+
+    static MultiLayerNetwork crearRed(int acciones, long semilla, DataType tipo) {
+        MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(tipo)
+                .updater(new Adam(LEARNING_RATE))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(2 * LETRAS).nOut(128)
+                        .activation(Activation.RELU).build())
+                .layer(new DenseLayer.Builder().nOut(64)
+                        .activation(Activation.RELU).build())
+                .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX)
+                        .nOut(acciones).build())
+                .build();
+        MultiLayerNetwork red = new MultiLayerNetwork(config);
+        red.init();
+        return red;
+    }
+
+    /**
+     * Llena la entrada con la pregunta y el contexto de la sesión ANTES de este turno
+     */
+    private void prepararEntrada(String sesion, String pregunta) {
+        Arrays.fill(letras, 0f);
+        for (char c : pregunta.toLowerCase().toCharArray()) {
+            if (c >= 'a' && c <= 'z') letras[c - 'a'] = 1f;
+        }
+        if (sesiones != null) sesiones.contextoMedio(sesion, contexto);
+        for (int j = 0; j < LETRAS; j++) {
+            entrada.putScalar(0, j, letras[j]);
+            entrada.putScalar(0, LETRAS + j, contexto[j]);
+        }
+    }
+
+    // La pregunta ya codificada (letras) pasa a ser contexto de los turnos siguientes
+    private void cerrarTurno(String sesion) {
+        if (sesiones != null) sesiones.registrar(sesion, letras);
+    }
+
+    private int predecir() {
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            return EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
+    }
+
+    /**
+     * Responde un turno de la conversación "sesion" y lo añade a su contexto
+     */
+    public String selectResponse(String sesion, String pregunta) {
+        prepararEntrada(sesion, pregunta);
+        int indice = random.nextDouble() < epsilon ? random.nextInt(respuestas.size()) : predecir();
+        cerrarTurno(sesion);
+        return respuestas.get(indice);
+    }
+
+    /**
+     * Un paso supervisado sobre un turno (con el contexto anterior) y lo añade al contexto.
+     * Devuelve la recompensa de la respuesta que habría dado el agente.
+     */
+    public double learn(String sesion, String pregunta, String respuestaCorrecta) {
+        prepararEntrada(sesion, pregunta);
+        int generada = random.nextDouble() < epsilon ? random.nextInt(respuestas.size()) : predecir();
+        double recompensa = ChatRLAgentV2.calcularRecompensa(pregunta, respuestas.get(generada), respuestaCorrecta);
+
+        Integer correcta = respuestaAIndice.get(respuestaCorrecta);
+        if (correcta != null) {
+            objetivo.assign(0);
+            objetivo.putScalar(correcta, 1.0);
+            model.fit(entrada, objetivo);
+        }
+        epsilon *= EPSILON_DECAY;
+        cerrarTurno(sesion);
+        return recompensa;
+    }
+
+    public void disableExploration() {
+        epsilon = 0.0;
+    }
+
+    MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    // ================= Demo: conversaciones con preguntas de seguimiento =================
+
+    private static final String[][] TEMAS = {
+            {"hablame del clima", "clima"},
+            {"quiero saber de futbol", "futbol"},
+            {"recomiendame musica", "musica"},
+            {"que hay de nuevo en el cine", "cine"},
+            {"tengo hambre, busco comida", "comida"},
+            {"necesito un vuelo barato", "viajes"},
+    };
+    private static final String[][] SEGUIMIENTOS = {
+            {"cuentame mas", "mas detalles sobre "},
+            {"y el precio", "precio de "},
+            {"gracias", "de nada, seguimos con "},
+    };
+
+    /**
+     * Una conversación = pregunta de tema + los seguimientos en orden aleatorio. Cada turno es
+     * {pregunta, respuesta}; las respuestas de seguimiento dependen del tema.
+     */
+    private static List<String[]> conversacion(int tema, Random random) {
+        List<String[]> turnos = new ArrayList<>();
+        turnos.add(new String[]{TEMAS[tema][0], "hablemos de " + TEMAS[tema][1]});
+        List<String[]> seguimientos = new ArrayList<>(Arrays.asList(SEGUIMIENTOS));
+        Collections.shuffle(seguimientos, random);
+        for (String[] s : seguimientos) turnos.add(new String[]{s[0], s[1] + TEMAS[tema][1]});
+        return turnos;
+    }
+
+    private static List<String> todasLasRespuestas() {
+        List<String> respuestas = new ArrayList<>();
+        for (String[] tema : TEMAS) {
+            respuestas.add("hablemos de " + tema[1]);
+            for (String[] s : SEGUIMIENTOS) respuestas.add(s[1] + tema[1]);
+        }
+        return respuestas;
+    }
+
+    /**
+     * Entrena "episodios" conversaciones y evalúa otras tantas nuevas sin exploración.
+     * Devuelve {precisión global, precisión en seguimientos} en %.
+     */
+    private static double[] entrenarYEvaluar(AlmacenSesiones sesiones, int episodios) {
+        List<String> respuestas = todasLasRespuestas();
+        ChatRLAgentContextual agente = new ChatRLAgentContextual(respuestas, sesiones, 42L);
+        Random random = new Random(42);
+        for (int ep = 0; ep < episodios; ep++) {
+            String sesion = "entrenamiento-" + ep;
+            for (String[] turno : conversacion(random.nextInt(TEMAS.length), random)) {
+                agente.learn(sesion, turno[0], turno[1]);
+            }
+            if (sesiones != null) sesiones.cerrar(sesion);
+        }
+
+        agente.disableExploration();
+        int aciertos = 0, total = 0, aciertosSeguimiento = 0, totalSeguimiento = 0;
+        for (int ep = 0; ep < 500; ep++) {
+            String sesion = "prueba-" + ep;
+            List<String[]> turnos = conversacion(ep % TEMAS.length, random);
+            for (int t = 0; t < turnos.size(); t++) {
+                boolean ok = agente.selectResponse(sesion, turnos.get(t)[0]).equals(turnos.get(t)[1]);
+                if (ok) aciertos++;
+                total++;
+                if (t > 0) {
+                    if (ok) aciertosSeguimiento++;
+                    totalSeguimiento++;
+                }
+            }
+        }
+        return new double[]{aciertos * 100.0 / total, aciertosSeguimiento * 100.0 / totalSeguimiento};
+    }
+
+    public static void main(String[] args) {
+        int capacidad = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int turnos = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long ttlMs = args.length > 2 ? Long.parseLong(args[2]) : 30 * 60 * 1000L;
+        int episodios = 2000;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  💬 CHAT CON CONTEXTO DE SESIÓN         ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        AlmacenSesiones sesiones = new AlmacenSesiones(capacidad, turnos, LETRAS, ttlMs);
+        System.out.println("⚙️ " + capacidad + " sesiones × " + turnos + " turnos × " + LETRAS + " floats = " +
+                String.format("%.1f MB", sesiones.bytes() / 1e6) + " preasignados | TTL " + ttlMs / 1000 + " s\n");
+
+        // Precisión: mismo agente y mismas conversaciones, con y sin contexto
+        System.out.println("📚 Entrenando " + episodios + " conversaciones (" + TEMAS.length + " temas, " +
+                SEGUIMIENTOS.length + " seguimientos cada una)...");
+        double[] sinContexto = entrenarYEvaluar(null, episodios);
+        double[] conContexto = entrenarYEvaluar(sesiones, episodios);
+        System.out.println(String.format("  Sin contexto | global %5.1f%% | seguimientos %5.1f%%", sinContexto[0], sinContexto[1]));
+        System.out.println(String.format("  Con contexto | global %5.1f%% | seguimientos %5.1f%%\n", conContexto[0], conContexto[1]));
+
+        // Carga: 1.5× más conversaciones que huecos, todas activas a la vez
+        int conversaciones = capacidad + capacidad / 2;
+        float[] vector = new float[LETRAS];
+        float[] media = new float[LETRAS];
+        Random random = new Random(7);
+        long inicio = System.nanoTime();
+        long operaciones = 0;
+        for (int ronda = 0; ronda < turnos; ronda++) {
+            for (int c = 0; c < conversaciones; c++) {
+                String sesion = "carga-" + c;
+                Arrays.fill(vector, 0f);
+                vector[random.nextInt(LETRAS)] = 1f;
+                sesiones.contextoMedio(sesion, media);
+                sesiones.registrar(sesion, vector);
+                operaciones += 2;
+            }
+        }
+        double nsPorOperacion = (System.nanoTime() - inicio) / (double) operaciones;
+        System.out.println("📈 " + conversaciones + " conversaciones concurrentes, " + turnos + " turnos cada una");
+        System.out.println(String.format("  %.0f ns por consulta/registro | sesiones vivas %d | expulsadas por tamaño %d | por TTL %d",
+                nsPorOperacion, sesiones.getSesiones(), sesiones.getExpulsadasPorTamano(), sesiones.getExpulsadasPorTtl()));
+        System.out.println(String.format("  Memoria de los huecos: %.1f MB (no depende del número de conversaciones)",
+                sesiones.bytes() / 1e6));
+    }
+}
@@ -6,12 +6,14 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -33,7 +35,6 @@ public class ChatRLAgentMejorado {
     }
 
     // FRECUENCIA DE LETRAS: 26 entradas en lugar de solo presencia/ausencia
-    private static final int ACTIONS = 15;  // 15 respuestas posibles
     private static final int STATE_SIZE = 26; // Frecuencia de cada letra (0.0 a 1.0)
     private static final double GAMMA = 0.99;
     private static final double EPSILON_DECAY = 0.995;
@@ -45,8 +46,11 @@ public class ChatRLAgentMejorado {
     private int totalAciertos = 0;
     private int totalIntentosEntrenamiento = 0;
 
-    // Base de respuestas entrenadas
-    private String[] respuestasBase = {
+    // Base de respuestas entrenadas: una salida por respuesta
+    private final String[] respuestasBase;
+    private final int acciones;
+
+    private static final String[] RESPUESTAS_BASE = {
         "hola como estás",
         "bien gracias",
         "estoy muy bien",
@@ -64,8 +68,34 @@ public class ChatRLAgentMejorado {
         "me llamo chatbot"
     };
 
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo)
+    private static final String WS = "WS_CHAT_MEJORADO";
+    private final INDArray entrada;
+    private final INDArray siguienteEntrada;
+    private final INDArray objetivo;
+    private final int[] conteosLetras = new int[26];
+
     public ChatRLAgentMejorado() {
+        this(Precision.FP32);
+    }
+
+    public ChatRLAgentMejorado(Precision precision) {
+        this(RESPUESTAS_BASE, precision);
+    }
+
+    /**
+     * Agente sobre otra base de respuestas (una salida por respuesta), p. ej. la de preguntas.json
+     */
+    public ChatRLAgentMejorado(List<String> respuestas, Precision precision) {
+        this(respuestas.toArray(new String[0]), precision);
+    }
+
+    private ChatRLAgentMejorado(String[] respuestasBase, Precision precision) {
+        this.respuestasBase = respuestasBase;
+        this.acciones = respuestasBase.length;
+
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .dataType(precision.tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(128)
@@ -76,41 +106,15 @@ public class ChatRLAgentMejorado {
                         .activation(Activation.RELU).build())
                 .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MSE)
                         .activation(Activation.IDENTITY)
-                        .nOut(ACTIONS).build())
+                        .nOut(acciones).build())
                 .build();
 
         model = new MultiLayerNetwork(config);
         model.init();
-    }
-
-    /**
-     * Codificación mejorada: FRECUENCIA DE LETRAS
-     * "hola" de longitud 4:
-     * - 'h' aparece 1 vez → 1/4 = 0.25
-     * - 'o' aparece 1 vez → 1/4 = 0.25
-     * - 'l' aparece 1 vez → 1/4 = 0.25
-     * - 'a' aparece 1 vez → 1/4 = 0.25
-     */
-    private double[] preguntaAVector(String pregunta) {
-        double[] vector = new double[STATE_SIZE];
-        pregunta = pregunta.toLowerCase().replaceAll("[^a-z]", "");
 
-        if (pregunta.length() == 0) return vector;
-
-        // Contar frecuencia de cada letra
-        int[] frecuencias = new int[26];
-        for (char c : pregunta.toCharArray()) {
-            if (c >= 'a' && c <= 'z') {
-                frecuencias[c - 'a']++;
-            }
-        }
-
-        // Normalizar por longitud total
-        for (int i = 0; i < 26; i++) {
-            vector[i] = (double) frecuencias[i] / pregunta.length();
-        }
-
-        return vector;
+        entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        siguienteEntrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        objetivo = Nd4j.create(precision.tipo, 1, acciones);
     }
 
     /**
@@ -121,10 +125,11 @@ public class ChatRLAgentMejorado {
             return respuestasBase[random.nextInt(respuestasBase.length)];
         }
 
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray output = model.output(input);
-        int respuestaIndex = Nd4j.argMax(output, 1).getInt(0) % respuestasBase.length;
+        EspacioTrabajo.frecuenciaLetras(pregunta, entrada, conteosLetras);
+        int respuestaIndex;
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            respuestaIndex = EspacioTrabajo.argMax(model.output(entrada, false, ws)) % respuestasBase.length;
+        }
 
         return respuestasBase[respuestaIndex];
     }
@@ -156,22 +161,19 @@ public class ChatRLAgentMejorado {
      * Aprende
      */
     public void learn(String pregunta, String respuestaGenerada, String respuestaCorrecta) {
-        double[] preguntaVector = preguntaAVector(pregunta);
-        double[] respuestaVectorCorrecta = preguntaAVector(respuestaCorrecta);
-
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray target = model.output(input).dup();
-
-        INDArray nextInput = Nd4j.create(new double[][]{respuestaVectorCorrecta});
-        INDArray futureQ = model.output(nextInput);
+        EspacioTrabajo.frecuenciaLetras(pregunta, entrada, conteosLetras);
+        EspacioTrabajo.frecuenciaLetras(respuestaCorrecta, siguienteEntrada, conteosLetras);
 
         double reward = calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
-        double qUpdated = reward + GAMMA * futureQ.maxNumber().doubleValue();
+        int respuestaIndex = Math.abs(respuestaGenerada.hashCode() % acciones);
 
-        int respuestaIndex = Math.abs(respuestaGenerada.hashCode() % ACTIONS);
-        target.putScalar(respuestaIndex, qUpdated);
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            objetivo.assign(model.output(entrada, false, ws));
+            double futureQ = EspacioTrabajo.max(model.output(siguienteEntrada, false, ws));
+            objetivo.putScalar(respuestaIndex, reward + GAMMA * futureQ);
+        }
 
-        model.fit(input, target);
+        model.fit(entrada, objetivo);
         epsilon *= EPSILON_DECAY;
 
         if (reward > 5) {
@@ -184,6 +186,14 @@ public class ChatRLAgentMejorado {
         epsilon = 0.0;
     }
 
+    double getEpsilon() {
+        return epsilon;
+    }
+
+    void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
     public static void main(String[] args) {
         ChatRLAgentMejorado agent = new ChatRLAgentMejorado();
 
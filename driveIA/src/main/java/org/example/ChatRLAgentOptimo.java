@@ -6,12 +6,15 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
@@ -80,15 +83,62 @@ public class ChatRLAgentOptimo {
     private static final double EPSILON_DECAY = 0.995;
     private static final double LEARNING_RATE = 0.0001;
 
+    // Clases de salida y su respuesta (por defecto, una por pregunta del diccionario)
+    private final int numClases;
+    private final Map<Integer, String> respuestasPorClase;
+
     private double epsilon = 1.0;
-    private Random random = new Random();
+    private final Random random;
     private MultiLayerNetwork model;
     private int totalAciertos = 0;
     private int totalIntentosEntrenamiento = 0;
 
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo)
+    private static final String WS = "WS_CHAT_OPTIMO";
+    private final INDArray entrada;
+    private final INDArray objetivo;
+    private final int[] conteosLetras = new int[26];
+
     public ChatRLAgentOptimo() {
+        this(Precision.FP32);
+    }
+
+    public ChatRLAgentOptimo(Precision precision) {
+        this(RESPUESTAS_MAPEADAS, precision, new Random().nextLong());
+    }
+
+    /**
+     * Agente que clasifica sobre otra lista de respuestas (clase i → respuestas.get(i)),
+     * p. ej. las respuestas únicas de preguntas.json
+     */
+    public ChatRLAgentOptimo(List<String> respuestas, Precision precision) {
+        this(mapear(respuestas), precision, new Random().nextLong());
+    }
+
+    /**
+     * Igual, pero reproducible: la semilla fija los pesos iniciales y la exploración
+     */
+    public ChatRLAgentOptimo(List<String> respuestas, Precision precision, long semilla) {
+        this(mapear(respuestas), precision, semilla);
+    }
+
+    private static Map<Integer, String> mapear(List<String> respuestas) {
+        Map<Integer, String> mapa = new HashMap<>();
+        for (int i = 0; i < respuestas.size(); i++) {
+            mapa.put(i, respuestas.get(i));
+        }
+        return mapa;
+    }
+
+    private ChatRLAgentOptimo(Map<Integer, String> respuestasPorClase, Precision precision, long semilla) {
+        this.respuestasPorClase = respuestasPorClase;
+        this.numClases = respuestasPorClase.size();
+        this.random = new Random(semilla);
+
         // Red neuronal para clasificar preguntas
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(precision.tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(192)// original 64
@@ -97,17 +147,20 @@ public class ChatRLAgentOptimo {
                         .activation(Activation.RELU).build())
                 .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MSE)
                         .activation(Activation.IDENTITY)
-                        .nOut(NUM_PREGUNTAS).build())
+                        .nOut(numClases).build())
                 .build();
 
         model = new MultiLayerNetwork(config);
         model.init();
+
+        entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        objetivo = Nd4j.create(precision.tipo, 1, numClases);
     }
 
     /**
      * Convierte pregunta a vector de frecuencia de letras
      */
-    private double[] preguntaAVector(String pregunta) {
+    double[] preguntaAVector(String pregunta) {
         double[] vector = new double[STATE_SIZE];
         pregunta = pregunta.toLowerCase().replaceAll("[^a-z]", "");
 
@@ -133,39 +186,42 @@ public class ChatRLAgentOptimo {
     public String selectResponse(String pregunta) {
         if (random.nextDouble() < epsilon) {
             // Exploración: pregunta aleatoria
-            int randomIdx = random.nextInt(NUM_PREGUNTAS);
-            return RESPUESTAS_MAPEADAS.get(randomIdx);
+            int randomIdx = random.nextInt(numClases);
+            return respuestasPorClase.get(randomIdx);
         }
 
         // Explotación: usa la red neuronal
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray output = model.output(input);
-        int mejorClase = Nd4j.argMax(output, 1).getInt(0);
+        EspacioTrabajo.frecuenciaLetras(pregunta, entrada, conteosLetras);
+        int mejorClase;
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            mejorClase = EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
 
-        return RESPUESTAS_MAPEADAS.getOrDefault(mejorClase, "no entiendo");
+        return respuestasPorClase.getOrDefault(mejorClase, "no entiendo");
     }
 
     /**
      * Aprende: compara respuesta generada vs correcta
      */
     public void learn(String pregunta, int indiceCorrectoEsperado) {
-        double[] preguntaVector = preguntaAVector(pregunta);
+        EspacioTrabajo.frecuenciaLetras(pregunta, entrada, conteosLetras);
 
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray output = model.output(input);
+        double reward;
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            INDArray output = model.output(entrada, false, ws);
 
-        // Obtener la clase predicha
-        int clasePredicada = Nd4j.argMax(output, 1).getInt(0);
+            // Obtener la clase predicha
+            int clasePredicada = EspacioTrabajo.argMax(output);
 
-        // Recompensa: +10 si acierta, -1 si falla
-        double reward = (clasePredicada == indiceCorrectoEsperado) ? 10 : -1;
+            // Recompensa: +10 si acierta, -1 si falla
+            reward = (clasePredicada == indiceCorrectoEsperado) ? 10 : -1;
 
-        // Crear target: la clase correcta debe tener valor alto
-        INDArray target = output.dup();
-        target.putScalar(indiceCorrectoEsperado, reward);
+            // Crear target: la clase correcta debe tener valor alto
+            objetivo.assign(output);
+            objetivo.putScalar(indiceCorrectoEsperado, reward);
+        }
 
-        model.fit(input, target);
+        model.fit(entrada, objetivo);
         epsilon *= EPSILON_DECAY;
 
         if (reward > 5) {
@@ -178,7 +234,19 @@ public class ChatRLAgentOptimo {
         epsilon = 0.0;
     }
 
-    public static void main(String[] args) {
+    MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    double getEpsilon() {
+        return epsilon;
+    }
+
+    void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    public static void main(String[] args) throws Exception {
         ChatRLAgentOptimo agent = new ChatRLAgentOptimo();
 
         System.out.println("╔════════════════════════════════════════╗");
@@ -226,28 +294,34 @@ public class ChatRLAgentOptimo {
         System.out.println("║     🤖 CHATBOT RL EN ACCIÓN 🤖        ║");
         System.out.println("╚════════════════════════════════════════╝\n");
 
-        int aciertosFinales = 0;
-        for (Map.Entry<String, Integer> entry : MAPEO_PREGUNTAS.entrySet()) {
-            String pregunta = entry.getKey();
-            int indiceEsperado = entry.getValue();
-            String respuestaEsperada = RESPUESTAS_MAPEADAS.get(indiceEsperado);
-            String respuestaGenerada = agent.selectResponse(pregunta);
-
-            boolean esCorrect = respuestaGenerada.equals(respuestaEsperada);
-            String estado = esCorrect ? "✅ CORRECTO" : "❌ INCORRECTO";
-            if (esCorrect) aciertosFinales++;
-
-            System.out.println("Pregunta:    \"" + pregunta + "\"");
-            System.out.println("Esperada:    \"" + respuestaEsperada + "\"");
-            System.out.println("Generada:    \"" + respuestaGenerada + "\"");
-            System.out.println("Resultado:   " + estado);
-            System.out.println("─────────────────────────────────────────\n");
+        // Evaluación por lotes en paralelo; solo se imprimen los fallos
+        String[] preguntas = MAPEO_PREGUNTAS.keySet().toArray(new String[0]);
+        int[] esperadas = new int[preguntas.length];
+        for (int i = 0; i < preguntas.length; i++) {
+            esperadas[i] = MAPEO_PREGUNTAS.get(preguntas[i]);
+        }
+        List<String> respuestas = new ArrayList<>();
+        for (int i = 0; i < NUM_PREGUNTAS; i++) {
+            respuestas.add(RESPUESTAS_MAPEADAS.get(i));
+        }
+        EvaluadorParalelo.Informe informe = new EvaluadorParalelo(agent.model, respuestas, agent::preguntaAVector,
+                Runtime.getRuntime().availableProcessors(), 1024, 1, 3).evaluar(preguntas, esperadas);
+
+        // Los fallos salen de las predicciones del evaluador, sin volver a pasar pregunta a pregunta
+        for (int i = 0; i < preguntas.length; i++) {
+            if (informe.prediccion(i) != esperadas[i]) {
+                String respuestaEsperada = respuestas.get(esperadas[i]);
+                String respuestaGenerada = respuestas.get(informe.prediccion(i));
+                System.out.println("❌ \"" + preguntas[i] + "\" → \"" + respuestaGenerada + "\" (esperada: \"" + respuestaEsperada + "\")");
+            }
         }
+        System.out.println();
 
         System.out.println("╔════════════════════════════════════════╗");
         System.out.println("║          📊 RESULTADOS FINALES         ║");
-        System.out.println("║  Aciertos: " + aciertosFinales + "/" + MAPEO_PREGUNTAS.size() +
-                         "  (" + String.format("%.1f", (aciertosFinales * 100.0) / MAPEO_PREGUNTAS.size()) + "%)");
+        System.out.println("║  Aciertos: " + informe.aciertos + "/" + informe.preguntas +
+                         "  (" + String.format("%.1f", informe.precision()) + "%)");
+        System.out.println("║  Top-3: " + String.format("%.1f", informe.precisionTopK(1)) + "%");
         System.out.println("║                                        ║");
         System.out.println("║  ¡Gracias por tu entusiasmo! 🎉        ║");
         System.out.println("╚════════════════════════════════════════╝");
@@ -0,0 +1,196 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * ChatRLAgentV2 con persistencia: cada par aprendido en caliente se escribe primero en un
+ * RegistroAprendizaje (WAL) y después se entrena. Cada "snapshotCada" pares se guarda un
+ * snapshot de la red y de las tablas y se compactan los segmentos del WAL que ya cubre.
+ *
+ * Al arrancar se carga el snapshot más reciente y solo se reproduce la cola del WAL, así que
+ * el tiempo de recuperación está acotado por "snapshotCada" y no por cuánto lleva aprendiendo.
+ */
+public class ChatRLAgentPersistente implements Closeable {
+
+    private static final String PREFIJO_SNAPSHOT = "snapshot-";
+    private static final int SNAPSHOTS_CONSERVADOS = 2;
+
+    private final Path directorio;
+    private final RegistroAprendizaje registro;
+    private final int snapshotCada;
+
+    private ChatRLAgentV2 agente;
+    private int paresDesdeSnapshot = 0;
+
+    private ChatRLAgentPersistente(Path directorio, int snapshotCada) throws IOException {
+        this.directorio = directorio;
+        this.snapshotCada = snapshotCada;
+        this.registro = new RegistroAprendizaje(directorio.resolve("wal"), 1 << 20, 32, 200);
+    }
+
+    /**
+     * Abre (o crea) el estado persistente. Si no hay ningún snapshot, entrena desde el JSON.
+     */
+    public static ChatRLAgentPersistente abrir(Path directorio, String rutaJSON, int episodiosIniciales,
+                                               int snapshotCada, long semilla) throws IOException {
+        long inicio = System.nanoTime();
+        ChatRLAgentPersistente persistente = new ChatRLAgentPersistente(directorio, snapshotCada);
+
+        long lsnSnapshot = -1;
+        for (Path snapshot : persistente.snapshots()) {
+            try {
+                persistente.agente = ChatRLAgentV2.cargarEstado(snapshot, semilla);
+                lsnSnapshot = lsnDe(snapshot);
+                System.out.println("💾 Snapshot cargado: " + snapshot.getFileName());
+                break;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("❌ Snapshot ilegible (" + snapshot.getFileName() + "): " + e.getMessage());
+            }
+        }
+
+        if (lsnSnapshot < 0) {
+            System.out.println("🆕 Sin snapshot: entrenando desde " + rutaJSON);
+            ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+            persistente.agente = new ChatRLAgentV2(semilla);
+            persistente.agente.inicializarRed();
+            for (int ep = 0; ep < episodiosIniciales; ep++) {
+                persistente.agente.entrenarEpoca();
+            }
+            lsnSnapshot = 0;
+        }
+
+        persistente.agente.activarEnsayo(512, 64);
+
+        final ChatRLAgentV2 agente = persistente.agente;
+        int[] pares = {0};
+        int reproducidas = persistente.registro.reproducir(lsnSnapshot, e -> {
+            if (e.tipo == RegistroAprendizaje.PAR) {
+                agente.aprenderNuevoParPreguntaRespuesta(e.a, e.b);
+                pares[0]++;
+            }
+        });
+        persistente.paresDesdeSnapshot = pares[0];
+
+        if (lsnSnapshot == 0 && persistente.snapshots().isEmpty()) {
+            persistente.snapshot();
+        }
+
+        System.out.println("♻️ Recuperación: " + reproducidas + " entradas del WAL reproducidas en " +
+                String.format("%.2f", (System.nanoTime() - inicio) / 1e9) + " s\n");
+        return persistente;
+    }
+
+    /**
+     * Registra el par en el WAL (escritura anticipada) y luego lo aprende
+     */
+    public void aprender(String pregunta, String respuesta) throws IOException {
+        registro.agregar(RegistroAprendizaje.PAR, pregunta, respuesta, 0);
+        agente.aprenderNuevoParPreguntaRespuesta(pregunta, respuesta);
+        registro.agregar(RegistroAprendizaje.ACTUALIZACION, "continuo", "", agente.getModel().score());
+
+        if (++paresDesdeSnapshot >= snapshotCada) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Snapshot atómico (directorio temporal + rename), poda de snapshots viejos y compactación del WAL
+     */
+    public void snapshot() throws IOException {
+        registro.sincronizar();
+        long lsn = registro.getUltimoLsn();
+
+        Path temporal = directorio.resolve(".tmp-" + PREFIJO_SNAPSHOT + lsn);
+        borrarRecursivo(temporal);
+        agente.guardarEstado(temporal);
+        Path destino = directorio.resolve(String.format("%s%020d", PREFIJO_SNAPSHOT, lsn));
+        borrarRecursivo(destino);
+        // El contenido debe estar en disco antes del rename: después se compacta el WAL que cubre
+        RegistroAprendizaje.forzarArbolADisco(temporal);
+        Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+        RegistroAprendizaje.forzarADisco(directorio.toAbsolutePath());
+        paresDesdeSnapshot = 0;
+
+        List<Path> snapshots = snapshots();
+        for (int i = SNAPSHOTS_CONSERVADOS; i < snapshots.size(); i++) {
+            borrarRecursivo(snapshots.get(i));
+        }
+        // Se conserva el WAL desde el snapshot más antiguo que queda, por si el último no se pudiera leer
+        long lsnMasAntiguo = lsnDe(snapshots.get(Math.min(SNAPSHOTS_CONSERVADOS, snapshots.size()) - 1));
+        int borrados = registro.compactar(lsnMasAntiguo);
+        System.out.println("💾 Snapshot en LSN " + lsn + " | Segmentos WAL compactados: " + borrados);
+    }
+
+    public String responder(String pregunta) {
+        return agente.selectResponse(pregunta);
+    }
+
+    public ChatRLAgentV2 getAgente() {
+        return agente;
+    }
+
+    @Override
+    public void close() throws IOException {
+        registro.close();
+    }
+
+    // Snapshots completos, del más reciente al más antiguo
+    private List<Path> snapshots() throws IOException {
+        List<Path> resultado = new ArrayList<>();
+        if (!Files.isDirectory(directorio)) return resultado;
+        try (DirectoryStream<Path> flujo = Files.newDirectoryStream(directorio, PREFIJO_SNAPSHOT + "*")) {
+            for (Path p : flujo) {
+                resultado.add(p);
+            }
+        }
+        resultado.sort(Collections.reverseOrder());
+        return resultado;
+    }
+
+    private static long lsnDe(Path snapshot) {
+        return Long.parseLong(snapshot.getFileName().toString().substring(PREFIJO_SNAPSHOT.length()));
+    }
+
+    private static void borrarRecursivo(Path ruta) throws IOException {
+        if (!Files.exists(ruta)) return;
+        try (Stream<Path> rutas = Files.walk(ruta)) {
+            for (Path p : (Iterable<Path>) rutas.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directorio = Paths.get(args.length > 0 ? args[0] : "estado-chat");
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  💾 CHATBOT PERSISTENTE (WAL+SNAPSHOT)  ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        try (ChatRLAgentPersistente chat = abrir(directorio, "preguntas.json", 100, 5, 42L)) {
+            chat.aprender("qué tal", "bien gracias");
+            chat.aprender("cómo va todo", "todo bien");
+            chat.aprender("hasta pronto", "nos vemos");
+            chat.aprender("me puedes ayudar", "claro, dime");
+            chat.aprender("qué día es hoy", "no lo sé");
+            chat.aprender("de dónde eres", "de internet");
+            chat.aprender("tienes hambre", "no como");
+        }
+
+        System.out.println("\n🔁 Reiniciando...\n");
+
+        try (ChatRLAgentPersistente chat = abrir(directorio, "preguntas.json", 100, 5, 42L)) {
+            chat.getAgente().disableExploration();
+            for (String pregunta : new String[]{"qué tal", "hasta pronto", "tienes hambre"}) {
+                System.out.println("Pregunta: \"" + pregunta + "\" → \"" + chat.responder(pregunta) + "\"");
+            }
+        }
+    }
+}
@@ -5,18 +5,26 @@ import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
 import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class ChatRLAgentV2 {
@@ -39,14 +47,58 @@ public class ChatRLAgentV2 {
     private Map<String, Integer> respuestaAIndice = new HashMap<>();
     private int ACTIONS;
 
+    private long semilla = new Random().nextLong();
+
+    // Aprendizaje continuo con memoria de ensayo acotada (null = re-entrenar como antes)
+    private static final int REPETICIONES_PAR_NUEVO = 8;
+    private static final int PASOS_CONTINUO = 30;
+    private MemoriaEnsayo memoriaEnsayo;
+    private int tamanoEnsayo;
+
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo); el objetivo depende de ACTIONS
+    private static final String WS = "WS_CHAT_V2";
+    private final Precision precision;
+    private final INDArray entrada;
+    private INDArray objetivo;
+
+    // Cabeza de salida en dos etapas (null = softmax plano sobre todas las respuestas)
+    private CabezaJerarquica cabezaJerarquica;
+
+    // Entrenamiento con softmax muestreado (null = MCXENT denso sobre todas las respuestas)
+    private static final int OCULTAS_MUESTREADO = 128;
+    private static final float TASA_MUESTREADO = 0.05f;
+    private SoftmaxMuestreado softmaxMuestreado;
+    private int negativosMuestreado;
+    private SoftmaxMuestreado.Muestreador muestreador;
+    private final float[] entradaPrimitiva = new float[STATE_SIZE];
+
     public ChatRLAgentV2() {
         // Se inicializa después de cargar JSON
+        this.precision = Precision.FP32;
+        this.entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+    }
+
+    // Semilla fija para la exploración y para los pesos iniciales de inicializarRed()
+    public ChatRLAgentV2(long semilla) {
+        this(semilla, Precision.FP32);
+    }
+
+    public ChatRLAgentV2(long semilla, Precision precision) {
+        this.semilla = semilla;
+        this.random = new Random(semilla);
+        this.precision = precision;
+        this.entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
     }
 
     /**
      * Carga las preguntas y respuestas desde un archivo JSON
      */
     public static void cargarDesdeJSON(String rutaArchivo) {
+        // Un directorio o un glob se carga como banco fragmentado
+        if (CargadorFragmentos.esGlob(rutaArchivo) || Files.isDirectory(Paths.get(rutaArchivo))) {
+            cargarDesdeDirectorio(rutaArchivo);
+            return;
+        }
         try {
             String contenido = new String(Files.readAllBytes(Paths.get(rutaArchivo)));
             JSONArray jsonArray = new JSONArray(contenido);
@@ -75,10 +127,42 @@ public class ChatRLAgentV2 {
         }
     }
 
+    /**
+     * Carga en paralelo todos los fragmentos JSON de un directorio o glob (ver CargadorFragmentos)
+     */
+    public static void cargarDesdeDirectorio(String ruta) {
+        try {
+            CargadorFragmentos.Resultado resultado = CargadorFragmentos.cargar(ruta, ForkJoinPool.commonPool());
+
+            RESPUESTAS_CORRECTAS.clear();
+            RESPUESTAS_UNICAS.clear();
+            RESPUESTAS_CORRECTAS.putAll(resultado.respuestasCorrectas);
+            RESPUESTAS_UNICAS.addAll(resultado.respuestasUnicas);
+
+            System.out.println("✅ Se cargaron " + RESPUESTAS_CORRECTAS.size() + " pares pregunta-respuesta desde " +
+                    resultado.fragmentos.size() + " fragmentos en " + String.format("%.1f", resultado.nanosTotales / 1e6) + " ms");
+            System.out.println("📊 Respuestas únicas: " + RESPUESTAS_UNICAS.size() + "\n");
+
+        } catch (IOException e) {
+            System.err.println("❌ Error al leer los fragmentos JSON: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
     /**
      * Aprende una nueva pregunta-respuesta en tiempo real
      */
     public void aprenderNuevoParPreguntaRespuesta(String pregunta, String respuesta) {
+        if (memoriaEnsayo != null && cabezaJerarquica != null) {
+            throw new IllegalStateException("El modo continuo no admite la cabeza jerárquica");
+        }
+        if (memoriaEnsayo != null && softmaxMuestreado != null) {
+            throw new IllegalStateException("El modo continuo no admite el softmax muestreado");
+        }
+        if (memoriaEnsayo != null) {
+            aprenderContinuo(pregunta, respuesta);
+            return;
+        }
         pregunta = pregunta.toLowerCase().trim();
         respuesta = respuesta.toLowerCase().trim();
 
@@ -96,6 +180,11 @@ public class ChatRLAgentV2 {
             // Reconstruir red con más neuronas de salida
             System.out.println("🔄 Nueva respuesta detectada. Expandiendo red a " + ACTIONS + " salidas...");
             inicializarRed();
+            if (cabezaJerarquica != null) {
+                activarCabezaJerarquica(cabezaJerarquica.getNumGrupos());
+            } else if (softmaxMuestreado != null) {
+                activarSoftmaxMuestreado(negativosMuestreado, muestreador);
+            }
 
             // RE-ENTRENAR TODO EL DATASET para recuperar el conocimiento
             System.out.println("🔄 Re-entrenando todo el dataset para mantener conocimiento...");
@@ -130,6 +219,173 @@ public class ChatRLAgentV2 {
         System.out.println("📝 Aprendido: \"" + pregunta + "\" → \"" + respuesta + "\" | Recompensa final: " + String.format("%.1f", recompensaFinal) + "/10");
     }
 
+    /**
+     * Activa el modo continuo: mete el dataset actual en una memoria de ensayo de "capacidad"
+     * preguntas y, a partir de ahí, cada par nuevo se entrena con "tamanoEnsayo" pares antiguos
+     */
+    public void activarEnsayo(int capacidad, int tamanoEnsayo) {
+        this.memoriaEnsayo = new MemoriaEnsayo(capacidad, semilla);
+        this.tamanoEnsayo = tamanoEnsayo;
+        for (Map.Entry<String, String> entry : RESPUESTAS_CORRECTAS.entrySet()) {
+            Integer id = respuestaAIndice.get(entry.getValue());
+            if (id != null) {
+                memoriaEnsayo.agregar(entry.getKey(), id);
+            }
+        }
+    }
+
+    /**
+     * Aprende un par con coste constante: el par nuevo repetido + una muestra acotada de la
+     * memoria de ensayo, durante un número fijo de pasos, sin recorrer el dataset completo
+     */
+    private void aprenderContinuo(String pregunta, String respuesta) {
+        pregunta = pregunta.toLowerCase().trim();
+        respuesta = respuesta.toLowerCase().trim();
+        String respuestaAnterior = RESPUESTAS_CORRECTAS.put(pregunta, respuesta);
+
+        if (!respuestaAIndice.containsKey(respuesta)) {
+            RESPUESTAS_UNICAS.add(respuesta);
+            respuestaAIndice.put(respuesta, RESPUESTAS_UNICAS.size() - 1);
+            expandirSalida(RESPUESTAS_UNICAS.size());
+        }
+        int id = respuestaAIndice.get(respuesta);
+        // Una pregunta reaprendida no debe seguir ensayándose con su respuesta anterior
+        if (respuestaAnterior != null) {
+            memoriaEnsayo.quitar(pregunta, respuestaAIndice.get(respuestaAnterior));
+        }
+
+        String[] antiguas = new String[tamanoEnsayo];
+        int[] idsAntiguos = new int[tamanoEnsayo];
+        int n = memoriaEnsayo.muestrear(tamanoEnsayo, antiguas, idsAntiguos);
+
+        int filas = REPETICIONES_PAR_NUEVO + n;
+        double[][] entradas = new double[filas][];
+        double[][] etiquetas = new double[filas][ACTIONS];
+        double[] vectorNuevo = preguntaAVector(pregunta);
+        for (int i = 0; i < REPETICIONES_PAR_NUEVO; i++) {
+            entradas[i] = vectorNuevo;
+            etiquetas[i][id] = 1.0;
+        }
+        for (int i = 0; i < n; i++) {
+            entradas[REPETICIONES_PAR_NUEVO + i] = preguntaAVector(antiguas[i]);
+            etiquetas[REPETICIONES_PAR_NUEVO + i][idsAntiguos[i]] = 1.0;
+        }
+        INDArray input = Nd4j.create(entradas).castTo(precision.tipo);
+        INDArray target = Nd4j.create(etiquetas).castTo(precision.tipo);
+        for (int paso = 0; paso < PASOS_CONTINUO; paso++) {
+            model.fit(input, target);
+        }
+
+        memoriaEnsayo.agregar(pregunta, id);
+
+        boolean correcto = Nd4j.argMax(model.output(Nd4j.create(new double[][]{vectorNuevo})), 1).getInt(0) == id;
+        System.out.println("📝 Aprendido (continuo): \"" + pregunta + "\" → \"" + respuesta + "\"" +
+                " | " + (correcto ? "✅" : "❌") +
+                " | Lote: " + filas +
+                " | Precisión en memoria de ensayo: " + String.format("%.1f", precisionEnsayo()) + "%");
+    }
+
+    /**
+     * Añade una neurona de salida conservando todos los pesos aprendidos
+     * (la columna nueva queda con la inicialización aleatoria de la red)
+     */
+    private void expandirSalida(int acciones) {
+        MultiLayerNetwork nueva = crearRed(acciones, semilla, precision.tipo);
+        int salida = model.getnLayers() - 1;
+        for (int i = 0; i < salida; i++) {
+            nueva.getLayer(i).setParams(model.getLayer(i).params());
+        }
+
+        int anteriores = ACTIONS;
+        nueva.getLayer(salida).getParam("W")
+                .get(NDArrayIndex.all(), NDArrayIndex.interval(0, anteriores))
+                .assign(model.getLayer(salida).getParam("W"));
+        INDArray biasNuevo = nueva.getLayer(salida).getParam("b");
+        double[] biasAnterior = model.getLayer(salida).getParam("b").toDoubleVector();
+        for (int j = 0; j < anteriores; j++) {
+            biasNuevo.putScalar(j, biasAnterior[j]);
+        }
+
+        model = nueva;
+        ACTIONS = acciones;
+    }
+
+    /**
+     * Precisión sobre las preguntas de la memoria de ensayo (muestra acotada de lo aprendido antes)
+     */
+    public double precisionEnsayo() {
+        if (memoriaEnsayo == null || memoriaEnsayo.getTamano() == 0) return 0;
+        List<String> preguntas = new ArrayList<>();
+        List<Integer> ids = new ArrayList<>();
+        memoriaEnsayo.recorrer((p, id) -> {
+            preguntas.add(p);
+            ids.add(id);
+        });
+
+        double[][] entradas = new double[preguntas.size()][];
+        for (int i = 0; i < preguntas.size(); i++) {
+            entradas[i] = preguntaAVector(preguntas.get(i));
+        }
+        INDArray predicciones = Nd4j.argMax(model.output(Nd4j.create(entradas)), 1);
+        int aciertos = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            if (predicciones.getInt(i) == ids.get(i)) aciertos++;
+        }
+        return aciertos * 100.0 / ids.size();
+    }
+
+    /**
+     * Cambia la salida a la cabeza jerárquica (grupo → respuesta) con "numGrupos" grupos
+     * formados a partir de las preguntas de cada respuesta. Se entrena desde cero.
+     */
+    public void activarCabezaJerarquica(int numGrupos) {
+        if (softmaxMuestreado != null) {
+            throw new IllegalStateException("La cabeza jerárquica no se puede combinar con el softmax muestreado");
+        }
+        double[][] centroides = new double[RESPUESTAS_UNICAS.size()][STATE_SIZE];
+        int[] cuentas = new int[RESPUESTAS_UNICAS.size()];
+        for (Map.Entry<String, String> entry : RESPUESTAS_CORRECTAS.entrySet()) {
+            Integer id = respuestaAIndice.get(entry.getValue());
+            if (id == null) continue;
+            double[] vector = preguntaAVector(entry.getKey());
+            for (int j = 0; j < STATE_SIZE; j++) centroides[id][j] += vector[j];
+            cuentas[id]++;
+        }
+        for (int id = 0; id < centroides.length; id++) {
+            for (int j = 0; j < STATE_SIZE && cuentas[id] > 0; j++) centroides[id][j] /= cuentas[id];
+        }
+        cabezaJerarquica = CabezaJerarquica.construir(centroides, numGrupos, semilla, precision.tipo);
+    }
+
+    /**
+     * Cambia el entrenamiento a softmax muestreado: cada paso calcula la pérdida solo sobre la
+     * respuesta correcta y "negativos" respuestas muestreadas (ver SoftmaxMuestreado). Con
+     * FRECUENCIA las respuestas frecuentes salen más como negativos. Se entrena desde cero.
+     */
+    public void activarSoftmaxMuestreado(int negativos, SoftmaxMuestreado.Muestreador muestreador) {
+        if (cabezaJerarquica != null) {
+            throw new IllegalStateException("El softmax muestreado no se puede combinar con la cabeza jerárquica");
+        }
+        if (negativos < 1) {
+            throw new IllegalArgumentException("negativos debe ser >= 1: " + negativos);
+        }
+        int[] conteos = new int[RESPUESTAS_UNICAS.size()];
+        for (String respuesta : RESPUESTAS_CORRECTAS.values()) {
+            Integer id = respuestaAIndice.get(respuesta);
+            if (id != null) conteos[id]++;
+        }
+        softmaxMuestreado = new SoftmaxMuestreado(STATE_SIZE, OCULTAS_MUESTREADO, conteos.length, TASA_MUESTREADO, semilla);
+        softmaxMuestreado.modoMuestreado(negativos, muestreador, conteos);
+        this.negativosMuestreado = negativos;
+        this.muestreador = muestreador;
+    }
+
+    private float[] vectorPrimitivo(String pregunta) {
+        int mascara = CompactadorDataset.mascara(pregunta);
+        for (int j = 0; j < STATE_SIZE; j++) entradaPrimitiva[j] = (mascara >>> j) & 1;
+        return entradaPrimitiva;
+    }
+
     /**
      * Inicializa la red neuronal dinámicamente según el número de respuestas únicas
      */
@@ -142,7 +398,24 @@ public class ChatRLAgentV2 {
         }
 
         // Construir red neuronal dinámicamente
+        model = crearRed(ACTIONS, semilla, precision.tipo);
+    }
+
+    /**
+     * Construye (sin entrenar) la red 26→256→128→64→acciones usada por el agente
+     */
+    static MultiLayerNetwork crearRed(int acciones) {
+        return crearRed(acciones, new Random().nextLong());
+    }
+
+    static MultiLayerNetwork crearRed(int acciones, long semilla) {
+        return crearRed(acciones, semilla, DataType.FLOAT);
+    }
+
+    static MultiLayerNetwork crearRed(int acciones, long semilla, DataType tipo) {
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(256)
@@ -153,17 +426,18 @@ public class ChatRLAgentV2 {
                         .activation(Activation.RELU).build())
                 .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
                         .activation(Activation.SOFTMAX)
-                        .nOut(ACTIONS).build())
+                        .nOut(acciones).build())
                 .build();
 
-        model = new MultiLayerNetwork(config);
-        model.init();
+        MultiLayerNetwork red = new MultiLayerNetwork(config);
+        red.init();
+        return red;
     }
 
     /**
      * Convierte una pregunta a vector: UNA NEURONA POR LETRA
      */
-    private double[] preguntaAVector(String pregunta) {
+    static double[] preguntaAVector(String pregunta) {
         double[] vector = new double[STATE_SIZE];
         pregunta = pregunta.toLowerCase().replaceAll("[^a-z]", "");
 
@@ -185,10 +459,17 @@ public class ChatRLAgentV2 {
             return RESPUESTAS_UNICAS.get(random.nextInt(RESPUESTAS_UNICAS.size()));
         }
 
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
-        INDArray output = model.output(input);
-        int respuestaIndex = Nd4j.argMax(output, 1).getInt(0);
+        if (softmaxMuestreado != null) {
+            return RESPUESTAS_UNICAS.get(softmaxMuestreado.predecir(vectorPrimitivo(pregunta)));
+        }
+        EspacioTrabajo.letrasPresentes(pregunta, entrada);
+        if (cabezaJerarquica != null) {
+            return RESPUESTAS_UNICAS.get(cabezaJerarquica.predecir(entrada));
+        }
+        int respuestaIndex;
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            respuestaIndex = EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
 
         return RESPUESTAS_UNICAS.get(respuestaIndex);
     }
@@ -196,7 +477,7 @@ public class ChatRLAgentV2 {
     /**
      * Calcula la recompensa comparando respuesta generada vs correcta
      */
-    private double calcularRecompensa(String pregunta, String respuestaGenerada, String respuestaCorrecta) {
+    static double calcularRecompensa(String pregunta, String respuestaGenerada, String respuestaCorrecta) {
         respuestaGenerada = respuestaGenerada.toLowerCase().trim();
         respuestaCorrecta = respuestaCorrecta.toLowerCase().trim();
 
@@ -225,21 +506,27 @@ public class ChatRLAgentV2 {
      * El agente aprende de la pregunta y la respuesta
      */
     public void learn(String pregunta, String respuestaGenerada, String respuestaCorrecta) {
-        double[] preguntaVector = preguntaAVector(pregunta);
-        INDArray input = Nd4j.create(new double[][]{preguntaVector});
+        EspacioTrabajo.letrasPresentes(pregunta, entrada);
 
-        double[] targetArray = new double[ACTIONS];
         Integer indiceCorrecta = respuestaAIndice.get(respuestaCorrecta);
         if (indiceCorrecta == null) {
             indiceCorrecta = 0;
         }
-        targetArray[indiceCorrecta] = 1.0;
-
-        INDArray target = Nd4j.create(new double[][]{targetArray});
 
         double reward = calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
 
-        model.fit(input, target);
+        if (softmaxMuestreado != null) {
+            softmaxMuestreado.aprender(vectorPrimitivo(pregunta), indiceCorrecta);
+        } else if (cabezaJerarquica != null) {
+            cabezaJerarquica.aprender(entrada, indiceCorrecta);
+        } else {
+            if (objetivo == null || objetivo.columns() != ACTIONS) {
+                objetivo = Nd4j.create(precision.tipo, 1, ACTIONS);
+            }
+            objetivo.assign(0);
+            objetivo.putScalar(indiceCorrecta, 1.0);
+            model.fit(entrada, objetivo);
+        }
         epsilon *= EPSILON_DECAY;
 
         if (reward > 5) {
@@ -248,11 +535,144 @@ public class ChatRLAgentV2 {
         totalIntentosEntrenamiento++;
     }
 
+    /**
+     * Un episodio: una pregunta-respuesta de cada par del dataset. Devuelve la recompensa media.
+     */
+    public double entrenarEpoca() {
+        double recompensaTotal = 0;
+        for (Map.Entry<String, String> entry : RESPUESTAS_CORRECTAS.entrySet()) {
+            String pregunta = entry.getKey();
+            String respuestaCorrecta = entry.getValue();
+
+            String respuestaGenerada = selectResponse(pregunta);
+            recompensaTotal += calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
+            learn(pregunta, respuestaGenerada, respuestaCorrecta);
+        }
+        return recompensaTotal / RESPUESTAS_CORRECTAS.size();
+    }
+
+    /**
+     * Época sobre el dataset compactado: un ejemplo por vector de entrada distinto, con objetivo
+     * suave y peso según cuántas preguntas representa (ver CompactadorDataset)
+     */
+    public void entrenarEpocaCompactada(CompactadorDataset compactado, int tamanoLote) {
+        exigirRedPlana("entrenarEpocaCompactada");
+        DataSet datos = compactado.getDatos();
+        // El ancho de las etiquetas se fija al compactar; si después apareció otra respuesta no encaja
+        if (datos.getLabels().columns() != ACTIONS) {
+            throw new IllegalStateException("Dataset compactado con " + datos.getLabels().columns() +
+                    " respuestas, la red tiene " + ACTIONS + ": vuelve a llamar a CompactadorDataset.compactar");
+        }
+        datos.shuffle(random.nextLong());
+        for (DataSet lote : datos.batchBy(tamanoLote)) {
+            model.fit(lote);
+        }
+        // La exploración decae igual que si se hubiera llamado a learn() una vez por pregunta
+        epsilon *= Math.pow(EPSILON_DECAY, compactado.getPares());
+    }
+
     public void disableExploration() {
         epsilon = 0.0;
     }
 
-    public static void main(String[] args) {
+    double getEpsilon() {
+        return epsilon;
+    }
+
+    void setEpsilon(double epsilon) {
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Guarda la red (con el estado del updater) y las tablas de pares/respuestas en un directorio.
+     * Solo la red plana: con la cabeza jerárquica o el softmax muestreado activos "model" no se
+     * entrena y se guardaría una red aleatoria, así que se rechaza.
+     */
+    public void guardarEstado(Path directorio) throws IOException {
+        if (cabezaJerarquica != null) {
+            throw new IllegalStateException("guardarEstado no guarda la cabeza jerárquica");
+        }
+        if (softmaxMuestreado != null) {
+            throw new IllegalStateException("guardarEstado no guarda el softmax muestreado");
+        }
+        Files.createDirectories(directorio);
+        ModelSerializer.writeModel(model, directorio.resolve("modelo.zip").toFile(), true);
+
+        JSONArray pares = new JSONArray();
+        for (Map.Entry<String, String> entry : RESPUESTAS_CORRECTAS.entrySet()) {
+            pares.put(new JSONObject().put("pregunta", entry.getKey()).put("respuesta", entry.getValue()));
+        }
+        JSONObject tablas = new JSONObject()
+                .put("respuestas", new JSONArray(RESPUESTAS_UNICAS))
+                .put("pares", pares)
+                .put("epsilon", epsilon);
+        Files.write(directorio.resolve("tablas.json"), tablas.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Restaura un agente guardado con guardarEstado (reemplaza las tablas estáticas cargadas)
+     */
+    public static ChatRLAgentV2 cargarEstado(Path directorio, long semilla) throws IOException {
+        JSONObject tablas = new JSONObject(new String(Files.readAllBytes(directorio.resolve("tablas.json")), StandardCharsets.UTF_8));
+
+        RESPUESTAS_CORRECTAS.clear();
+        RESPUESTAS_UNICAS.clear();
+        JSONArray respuestas = tablas.getJSONArray("respuestas");
+        for (int i = 0; i < respuestas.length(); i++) {
+            RESPUESTAS_UNICAS.add(respuestas.getString(i));
+        }
+        JSONArray pares = tablas.getJSONArray("pares");
+        for (int i = 0; i < pares.length(); i++) {
+            JSONObject obj = pares.getJSONObject(i);
+            RESPUESTAS_CORRECTAS.put(obj.getString("pregunta"), obj.getString("respuesta"));
+        }
+
+        MultiLayerNetwork red = ModelSerializer.restoreMultiLayerNetwork(directorio.resolve("modelo.zip").toFile(), true);
+        ChatRLAgentV2 agente = new ChatRLAgentV2(semilla, Precision.de(red.getLayerWiseConfigurations().getDataType()));
+        agente.model = red;
+        agente.ACTIONS = RESPUESTAS_UNICAS.size();
+        for (int i = 0; i < RESPUESTAS_UNICAS.size(); i++) {
+            agente.respuestaAIndice.put(RESPUESTAS_UNICAS.get(i), i);
+        }
+        agente.epsilon = tablas.optDouble("epsilon", 0.0);
+        return agente;
+    }
+
+    // Acceso de paquete para los entrenadores externos (paralelo, distribuido...)
+    static Map<String, String> getRespuestasCorrectas() {
+        return RESPUESTAS_CORRECTAS;
+    }
+
+    static List<String> getRespuestasUnicas() {
+        return RESPUESTAS_UNICAS;
+    }
+
+    Precision getPrecision() {
+        return precision;
+    }
+
+    MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    /**
+     * Para los caminos que entrenan "model" directamente: con la cabeza jerárquica o el softmax
+     * muestreado activos la predicción no lee esa red y el entrenamiento no serviría de nada
+     */
+    void exigirRedPlana(String operacion) {
+        if (cabezaJerarquica != null) {
+            throw new IllegalStateException(operacion + " entrena la red plana, pero la predicción usa la cabeza jerárquica");
+        }
+        if (softmaxMuestreado != null) {
+            throw new IllegalStateException(operacion + " entrena la red plana, pero la predicción usa el softmax muestreado");
+        }
+    }
+
+    Integer indiceDeRespuesta(String respuesta) {
+        return respuestaAIndice.get(respuesta);
+    }
+
+    public static void main(String[] args) throws Exception {
         // Cargar preguntas desde JSON
         String rutaJSON = "preguntas.json";
         cargarDesdeJSON(rutaJSON);
@@ -283,24 +703,10 @@ public class ChatRLAgentV2 {
         int episodios = 100;
 
         for (int ep = 1; ep <= episodios; ep++) {
-            double recompensaTotalEpisodio = 0;
-            int intentosEpisodio = 0;
-
-            for (Map.Entry<String, String> entry : RESPUESTAS_CORRECTAS.entrySet()) {
-                String pregunta = entry.getKey();
-                String respuestaCorrecta = entry.getValue();
-
-                String respuestaGenerada = agent.selectResponse(pregunta);
-                double recompensa = agent.calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
-                agent.learn(pregunta, respuestaGenerada, respuestaCorrecta);
-
-                recompensaTotalEpisodio += recompensa;
-                intentosEpisodio++;
-            }
+            double recompensaPromedio = agent.entrenarEpoca();
 
             if (ep % 10 == 0) {
                 double porcentajeAcierto = (agent.totalAciertos * 100.0) / agent.totalIntentosEntrenamiento;
-                double recompensaPromedio = recompensaTotalEpisodio / intentosEpisodio;
                 System.out.println("Episodio " + ep + "/" + episodios +
                                  " | Precisión: " + String.format("%.1f", porcentajeAcierto) + "% | " +
                                  "Recompensa: " + String.format("%.2f", recompensaPromedio) + "/10 | " +
@@ -319,17 +725,23 @@ public class ChatRLAgentV2 {
         System.out.println("║      🤖 CHATBOT RL EN ACCIÓN 🤖        ║");
         System.out.println("╚════════════════════════════════════════╝\n");
 
-        int aciertosFinales = 0;
-        // MOSTRAR TODAS LAS PREGUNTAS, NO SOLO 20
+        // Evaluación por lotes en paralelo; solo se imprimen unos pocos ejemplos
         List<String> todasLasPreguntas = new ArrayList<>(RESPUESTAS_CORRECTAS.keySet());
+        String[] preguntas = todasLasPreguntas.toArray(new String[0]);
+        int[] esperadas = new int[preguntas.length];
+        for (int i = 0; i < preguntas.length; i++) {
+            esperadas[i] = agent.respuestaAIndice.get(RESPUESTAS_CORRECTAS.get(preguntas[i]));
+        }
+        EvaluadorParalelo.Informe informe = new EvaluadorParalelo(agent.model, RESPUESTAS_UNICAS,
+                ChatRLAgentV2::preguntaAVector, Runtime.getRuntime().availableProcessors(), 1024, 1, 5)
+                .evaluar(preguntas, esperadas);
 
-        for (String pregunta : todasLasPreguntas) {
+        for (String pregunta : todasLasPreguntas.subList(0, Math.min(5, todasLasPreguntas.size()))) {
             String respuestaCorrecta = RESPUESTAS_CORRECTAS.get(pregunta);
             String respuestaGenerada = agent.selectResponse(pregunta);
 
             double reward = agent.calcularRecompensa(pregunta, respuestaGenerada, respuestaCorrecta);
             String estado = (reward > 5) ? "✅ CORRECTO" : "❌ INCORRECTO";
-            if (reward > 5) aciertosFinales++;
 
             System.out.println("Pregunta:          \"" + pregunta + "\"");
             System.out.println("Esperada:          \"" + respuestaCorrecta + "\"");
@@ -340,7 +752,8 @@ public class ChatRLAgentV2 {
 
         System.out.println("╔════════════════════════════════════════╗");
         System.out.println("║          📊 RESULTADOS FINALES         ║");
-        System.out.println("║  Aciertos: " + aciertosFinales + "/" + todasLasPreguntas.size() + "  (" + String.format("%.1f", (aciertosFinales * 100.0) / todasLasPreguntas.size()) + "%)");
+        System.out.println("║  Aciertos: " + informe.aciertos + "/" + informe.preguntas + "  (" + String.format("%.1f", informe.precision()) + "%)");
+        System.out.println("║  Top-5: " + String.format("%.1f", informe.precisionTopK(1)) + "%  |  Recompensa media: " + String.format("%.2f", informe.recompensaMedia()) + "/10");
         System.out.println("╚════════════════════════════════════════╝\n\n");
 
         // ========== APRENDIZAJE CONTINUO ==========
@@ -349,6 +762,9 @@ public class ChatRLAgentV2 {
         System.out.println("║  Enseñando nuevas preguntas...         ║");
         System.out.println("╚════════════════════════════════════════╝\n");
 
+        // Modo continuo: coste constante por par (memoria de ensayo de 512 preguntas, 64 por paso)
+        agent.activarEnsayo(512, 64);
+
         // Enseñar nuevos pares pregunta-respuesta
         agent.aprenderNuevoParPreguntaRespuesta("qué tal", "bien gracias");
         agent.aprenderNuevoParPreguntaRespuesta("cómo va todo", "todo bien");
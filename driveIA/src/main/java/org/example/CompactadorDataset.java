@@ -0,0 +1,179 @@
+package org.example;
+
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+
+/**
+ * Agrupa los pares pregunta-respuesta por vector de entrada codificado.
+ *
+ * Con la codificación "una neurona por letra" de ChatRLAgentV2 muchas preguntas distintas dan
+ * exactamente el mismo vector (26 bits), así que se entrenan una sola vez: el objetivo es la
+ * distribución de respuestas del grupo (suave si hay colisión) y el peso del ejemplo es el
+ * número de preguntas que representa, normalizado para que el peso medio por pregunta sea 1.
+ */
+public class CompactadorDataset {
+
+    static final class Grupo {
+        final int mascara;                                          // bit i = letra 'a'+i presente
+        final List<String> preguntas = new ArrayList<>();
+        final Map<Integer, Integer> conteos = new LinkedHashMap<>(); // id de respuesta → veces
+
+        Grupo(int mascara) {
+            this.mascara = mascara;
+        }
+
+        boolean enConflicto() {
+            return conteos.size() > 1;
+        }
+
+        int mayoritaria() {
+            return Collections.max(conteos.values());
+        }
+    }
+
+    private final List<Grupo> grupos;
+    private final int pares;
+    private final DataSet datos;
+
+    private CompactadorDataset(List<Grupo> grupos, int pares, DataSet datos) {
+        this.grupos = grupos;
+        this.pares = pares;
+        this.datos = datos;
+    }
+
+    static int mascara(String pregunta) {
+        int mascara = 0;
+        for (int i = 0, n = pregunta.length(); i < n; i++) {
+            char c = Character.toLowerCase(pregunta.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                mascara |= 1 << (c - 'a');
+            }
+        }
+        return mascara;
+    }
+
+    /**
+     * Compacta el dataset actual de ChatRLAgentV2 con los ids de respuesta del agente
+     */
+    public static CompactadorDataset compactar(ChatRLAgentV2 agente, DataType tipo) {
+        Map<Integer, Grupo> porMascara = new LinkedHashMap<>();
+        int pares = 0;
+        for (Map.Entry<String, String> par : ChatRLAgentV2.getRespuestasCorrectas().entrySet()) {
+            Integer id = agente.indiceDeRespuesta(par.getValue());
+            if (id == null) continue;
+            Grupo grupo = porMascara.computeIfAbsent(mascara(par.getKey()), Grupo::new);
+            grupo.preguntas.add(par.getKey());
+            grupo.conteos.merge(id, 1, Integer::sum);
+            pares++;
+        }
+        List<Grupo> grupos = new ArrayList<>(porMascara.values());
+
+        int acciones = ChatRLAgentV2.getRespuestasUnicas().size();
+        int m = grupos.size();
+        double[][] entradas = new double[m][26];
+        double[][] objetivos = new double[m][acciones];
+        double[][] pesos = new double[m][1];
+        for (int g = 0; g < m; g++) {
+            Grupo grupo = grupos.get(g);
+            for (int j = 0; j < 26; j++) {
+                entradas[g][j] = (grupo.mascara >>> j) & 1;
+            }
+            int total = grupo.preguntas.size();
+            for (Map.Entry<Integer, Integer> conteo : grupo.conteos.entrySet()) {
+                objetivos[g][conteo.getKey()] = conteo.getValue() / (double) total;
+            }
+            pesos[g][0] = total * (double) m / pares;
+        }
+
+        // Los pesos van en la máscara de etiquetas: DL4J multiplica la pérdida de cada ejemplo por ella
+        DataSet datos = new DataSet(Nd4j.create(entradas).castTo(tipo), Nd4j.create(objetivos).castTo(tipo),
+                null, Nd4j.create(pesos).castTo(tipo));
+        return new CompactadorDataset(grupos, pares, datos);
+    }
+
+    public DataSet getDatos() {
+        return datos;
+    }
+
+    public int getPares() {
+        return pares;
+    }
+
+    public int getVectoresUnicos() {
+        return grupos.size();
+    }
+
+    /**
+     * Techo de precisión con esta codificación: en cada grupo solo puede acertarse la respuesta mayoritaria
+     */
+    public double precisionMaxima() {
+        int alcanzables = 0;
+        for (Grupo grupo : grupos) {
+            alcanzables += grupo.mayoritaria();
+        }
+        return alcanzables * 100.0 / pares;
+    }
+
+    public void imprimirInforme(int maxColisiones) {
+        List<Grupo> conflictos = new ArrayList<>();
+        int preguntasEnConflicto = 0;
+        for (Grupo grupo : grupos) {
+            if (grupo.enConflicto()) {
+                conflictos.add(grupo);
+                preguntasEnConflicto += grupo.preguntas.size();
+            }
+        }
+        conflictos.sort((a, b) -> Integer.compare(b.preguntas.size(), a.preguntas.size()));
+
+        System.out.println("🧮 Pares: " + pares + " | Vectores únicos: " + grupos.size() +
+                " (" + String.format("%.1f", 100.0 - grupos.size() * 100.0 / pares) + "% menos fits por época)");
+        System.out.println("⚠️ Colisiones con respuestas distintas: " + conflictos.size() + " grupos, " +
+                preguntasEnConflicto + " preguntas | Precisión máxima alcanzable: " +
+                String.format("%.1f", precisionMaxima()) + "%");
+        List<String> respuestas = ChatRLAgentV2.getRespuestasUnicas();
+        for (Grupo grupo : conflictos.subList(0, Math.min(maxColisiones, conflictos.size()))) {
+            StringBuilder linea = new StringBuilder("   • " + grupo.preguntas + " →");
+            for (Map.Entry<Integer, Integer> conteo : grupo.conteos.entrySet()) {
+                linea.append(" \"").append(respuestas.get(conteo.getKey())).append("\"×").append(conteo.getValue());
+            }
+            System.out.println(linea);
+        }
+        System.out.println();
+    }
+
+    public static void main(String[] args) {
+        String rutaJSON = args.length > 0 ? args[0] : "preguntas.json";
+        int episodios = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🗜️ COMPACTACIÓN DEL DATASET            ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+
+        // Mismo punto de partida para los dos modos
+        ChatRLAgentV2 clasico = new ChatRLAgentV2(42L);
+        clasico.inicializarRed();
+        ChatRLAgentV2 compacto = new ChatRLAgentV2(42L);
+        compacto.inicializarRed();
+
+        CompactadorDataset compactado = compactar(compacto, compacto.getPrecision().tipo);
+        compactado.imprimirInforme(10);
+
+        long inicio = System.nanoTime();
+        for (int ep = 0; ep < episodios; ep++) clasico.entrenarEpoca();
+        double segClasico = (System.nanoTime() - inicio) / 1e9;
+
+        inicio = System.nanoTime();
+        for (int ep = 0; ep < episodios; ep++) compacto.entrenarEpocaCompactada(compactado, 1);
+        double segCompacto = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.println(String.format("📊 Clásico:    %4d fits/época | %6.1f s | precisión %.1f%%",
+                compactado.getPares(), segClasico, EntrenadorParaleloV2.precision(clasico, clasico.getModel())));
+        System.out.println(String.format("📊 Compactado: %4d fits/época | %6.1f s | precisión %.1f%%",
+                compactado.getVectoresUnicos(), segCompacto, EntrenadorParaleloV2.precision(compacto, compacto.getModel())));
+    }
+}
@@ -0,0 +1,183 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Destilación de un ChatRLAgentV2 entrenado (profesor, 26→256→128→64→N) en un alumno
+ * 26→16→N del tamaño de las redes de RLAgent.
+ *
+ * El objetivo del alumno es α·softmax(log p/T) + (1-α)·etiqueta, donde p es la salida del
+ * profesor: con T > 1 la distribución se suaviza y el alumno aprende también qué respuestas
+ * "se parecen" (el conocimiento oscuro). El alumno usa su softmax normal (T = 1) y una sola
+ * entropía cruzada contra ese objetivo mezclado. No es la pérdida de Hinton, que compara
+ * softmax(z_alumno/T) con el profesor a T y escala ese término por T²: aquí la temperatura solo
+ * suaviza el objetivo.
+ *
+ * Además de las preguntas del dataset se añaden copias con una letra cambiada, etiquetadas
+ * solo por el profesor, para que el alumno vea más puntos de su función.
+ */
+public class DestilacionChat {
+
+    private static final double LEARNING_RATE = 0.01;
+    private static final int CONSULTAS = 5000;
+    private static final String WS = "WS_DESTILACION";
+
+    /**
+     * Red alumno: 26 → ocultas (ReLU) → acciones (softmax)
+     */
+    static MultiLayerNetwork crearAlumno(int ocultas, int acciones, long semilla, DataType tipo) {
+        MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(tipo)
+                .updater(new Adam(LEARNING_RATE))
+                .list()
+                .layer(new DenseLayer.Builder().nIn(26).nOut(ocultas)
+                        .activation(Activation.RELU).build())
+                .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX)
+                        .nOut(acciones).build())
+                .build();
+        MultiLayerNetwork red = new MultiLayerNetwork(config);
+        red.init();
+        return red;
+    }
+
+    /**
+     * Dataset de destilación. Las filas con etiqueta < 0 (aumentadas) solo usan al profesor.
+     */
+    static DataSet objetivosBlandos(MultiLayerNetwork profesor, double[][] entradas, int[] etiquetas,
+                                    double temperatura, double alfa) {
+        double[][] p = profesor.output(Nd4j.create(entradas)).toDoubleMatrix();
+        double[][] objetivos = new double[entradas.length][];
+        for (int i = 0; i < entradas.length; i++) {
+            double[] blando = new double[p[i].length];
+            double suma = 0;
+            for (int j = 0; j < blando.length; j++) {
+                blando[j] = Math.pow(Math.max(p[i][j], 1e-12), 1.0 / temperatura);
+                suma += blando[j];
+            }
+            double pesoBlando = etiquetas[i] < 0 ? 1.0 : alfa;
+            for (int j = 0; j < blando.length; j++) blando[j] = pesoBlando * blando[j] / suma;
+            if (etiquetas[i] >= 0) blando[etiquetas[i]] += 1 - alfa;
+            objetivos[i] = blando;
+        }
+        DataType tipo = profesor.getLayerWiseConfigurations().getDataType();
+        return new DataSet(Nd4j.create(entradas).castTo(tipo), Nd4j.create(objetivos).castTo(tipo));
+    }
+
+    static void entrenar(MultiLayerNetwork alumno, DataSet datos, int epocas, int tamanoLote, long semilla) {
+        Random random = new Random(semilla);
+        for (int ep = 0; ep < epocas; ep++) {
+            datos.shuffle(random.nextLong());
+            for (DataSet lote : datos.batchBy(tamanoLote)) {
+                alumno.fit(lote);
+            }
+        }
+    }
+
+    private static String informe(String nombre, MultiLayerNetwork red, double[][] entradas, int[] esperadas) {
+        INDArray predicciones = Nd4j.argMax(red.output(Nd4j.create(entradas)), 1);
+        int aciertos = 0;
+        for (int i = 0; i < entradas.length; i++) if (predicciones.getInt(i) == esperadas[i]) aciertos++;
+
+        INDArray fila = Nd4j.create(red.getLayerWiseConfigurations().getDataType(), 1, 26);
+        for (int i = 0; i < 500; i++) {
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+                EspacioTrabajo.argMax(red.output(fila, false, ws));
+            }
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) {
+            double[] x = entradas[i % entradas.length];
+            for (int j = 0; j < 26; j++) fila.putScalar(0, j, x[j]);
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+                EspacioTrabajo.argMax(red.output(fila, false, ws));
+            }
+        }
+        double us = (System.nanoTime() - inicio) / 1e3 / CONSULTAS;
+        return String.format("  %-28s | precisión %5.1f%% | %6.1f µs/consulta | %8d parámetros",
+                nombre, aciertos * 100.0 / entradas.length, us, red.numParams());
+    }
+
+    public static void main(String[] args) {
+        double temperatura = args.length > 0 ? Double.parseDouble(args[0]) : 4.0;
+        double alfa = args.length > 1 ? Double.parseDouble(args[1]) : 0.7;
+        int ocultas = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        int epocasAlumno = 300, aumentosPorPregunta = 4;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🎓 DESTILACIÓN PROFESOR → ALUMNO       ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        List<String> respuestas = new ArrayList<>(ChatRLAgentV2.getRespuestasUnicas());
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+        double[][] entradas = new double[pares.size()][];
+        int[] esperadas = new int[pares.size()];
+        for (int i = 0; i < pares.size(); i++) {
+            entradas[i] = ChatRLAgentV2.preguntaAVector(pares.get(i).getKey());
+            esperadas[i] = respuestas.indexOf(pares.get(i).getValue());
+        }
+
+        // Profesor
+        System.out.println("👨‍🏫 Entrenando el profesor (ChatRLAgentV2, 100 épocas)...");
+        ChatRLAgentV2 profesor = new ChatRLAgentV2(42L);
+        profesor.inicializarRed();
+        for (int ep = 0; ep < 100; ep++) profesor.entrenarEpoca();
+
+        // Preguntas aumentadas: una letra añadida o quitada, sin etiqueta
+        Random random = new Random(42);
+        int n = entradas.length;
+        double[][] conAumentos = new double[n * (1 + aumentosPorPregunta)][];
+        int[] etiquetas = new int[conAumentos.length];
+        for (int i = 0; i < n; i++) {
+            conAumentos[i] = entradas[i];
+            etiquetas[i] = esperadas[i];
+            for (int a = 0; a < aumentosPorPregunta; a++) {
+                double[] copia = entradas[i].clone();
+                int letra = random.nextInt(26);
+                copia[letra] = 1 - copia[letra];
+                int k = n + i * aumentosPorPregunta + a;
+                conAumentos[k] = copia;
+                etiquetas[k] = -1;
+            }
+        }
+
+        DataType tipo = profesor.getPrecision().tipo;
+        // α = 0: solo la etiqueta, el mismo alumno sin profesor como referencia
+        DataSet duro = objetivosBlandos(profesor.getModel(), entradas, esperadas, 1.0, 0.0);
+        DataSet destilado = objetivosBlandos(profesor.getModel(), conAumentos, etiquetas, temperatura, alfa);
+
+        // Mismo número de pasos de optimización para los dos: el destilado tiene más filas por época
+        int lotesDuro = (entradas.length + 63) / 64, lotesDestilado = (conAumentos.length + 63) / 64;
+        int epocasDuro = epocasAlumno * lotesDestilado / lotesDuro;
+        System.out.println("🧑‍🎓 Entrenando alumnos 26→" + ocultas + "→" + respuestas.size() + " (" +
+                epocasAlumno * lotesDestilado + " pasos cada uno, T=" + temperatura + ", α=" + alfa + ")...\n");
+        MultiLayerNetwork soloEtiquetas = crearAlumno(ocultas, respuestas.size(), 7L, tipo);
+        entrenar(soloEtiquetas, duro, epocasDuro, 64, 7L);
+        MultiLayerNetwork alumno = crearAlumno(ocultas, respuestas.size(), 7L, tipo);
+        entrenar(alumno, destilado, epocasAlumno, 64, 7L);
+
+        System.out.println("📊 Comparativa en preguntas.json");
+        System.out.println(informe("Profesor (26→256→128→64→N)", profesor.getModel(), entradas, esperadas));
+        System.out.println(informe("Alumno solo etiquetas", soloEtiquetas, entradas, esperadas));
+        System.out.println(informe("Alumno destilado", alumno, entradas, esperadas));
+    }
+}
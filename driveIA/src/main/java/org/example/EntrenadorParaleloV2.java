@@ -0,0 +1,241 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Entrenamiento paralelo por datos para ChatRLAgentV2.
+ *
+ * K réplicas de la red entrenan cada una sobre un fragmento disjunto de
+ * RESPUESTAS_CORRECTAS y, cada "frecuenciaPromedio" minilotes, sus parámetros
+ * se promedian en el modelo maestro y se vuelven a repartir a las réplicas.
+ */
+public class EntrenadorParaleloV2 {
+
+    private final int numReplicas;
+    private final int frecuenciaPromedio;  // minilotes por réplica entre promedios
+    private final int tamanoLote;
+
+    private final ChatRLAgentV2 agente;
+    private final MultiLayerNetwork maestro;
+    private final MultiLayerNetwork[] replicas;
+    private final DataSet[] fragmentos;
+    private final ExecutorService hilos;
+
+    private long ejemplosProcesados = 0;
+    private int promediosRealizados = 0;
+
+    public EntrenadorParaleloV2(ChatRLAgentV2 agente, int numReplicas, int frecuenciaPromedio, int tamanoLote) {
+        if (numReplicas < 1 || frecuenciaPromedio < 1 || tamanoLote < 1) {
+            throw new IllegalArgumentException("Réplicas, frecuencia y lote deben ser >= 1");
+        }
+        int pares = ChatRLAgentV2.getRespuestasCorrectas().size();
+        if (numReplicas > pares) {
+            throw new IllegalArgumentException("Más réplicas (" + numReplicas + ") que pares (" + pares + "): habría fragmentos vacíos");
+        }
+        agente.exigirRedPlana("EntrenadorParaleloV2");
+        this.agente = agente;
+        this.numReplicas = numReplicas;
+        this.frecuenciaPromedio = frecuenciaPromedio;
+        this.tamanoLote = tamanoLote;
+        this.maestro = agente.getModel();
+
+        this.replicas = new MultiLayerNetwork[numReplicas];
+        for (int i = 0; i < numReplicas; i++) {
+            replicas[i] = maestro.clone();
+        }
+
+        this.fragmentos = crearFragmentos();
+        this.hilos = Executors.newFixedThreadPool(numReplicas);
+    }
+
+    /**
+     * Reparte los pares (ordenados por pregunta para que sea reproducible) en K fragmentos disjuntos
+     */
+    private DataSet[] crearFragmentos() {
+        DataSet[] resultado = new DataSet[numReplicas];
+        for (int k = 0; k < numReplicas; k++) {
+            resultado[k] = crearFragmento(agente, k, numReplicas);
+        }
+        return resultado;
+    }
+
+    /**
+     * Fragmento "indice" de "total": las preguntas ordenadas cuya posición % total == indice
+     */
+    static DataSet crearFragmento(ChatRLAgentV2 agente, int indice, int total) {
+        List<String> preguntas = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().keySet());
+        Collections.sort(preguntas);
+        if (indice >= preguntas.size()) {
+            throw new IllegalArgumentException("Fragmento " + indice + " vacío: solo hay " + preguntas.size() + " pares");
+        }
+        int acciones = ChatRLAgentV2.getRespuestasUnicas().size();
+
+        List<String> fragmento = new ArrayList<>();
+        for (int i = indice; i < preguntas.size(); i += total) {
+            fragmento.add(preguntas.get(i));
+        }
+
+        double[][] entradas = new double[fragmento.size()][];
+        double[][] etiquetas = new double[fragmento.size()][acciones];
+        for (int i = 0; i < fragmento.size(); i++) {
+            String pregunta = fragmento.get(i);
+            entradas[i] = ChatRLAgentV2.preguntaAVector(pregunta);
+            Integer indiceRespuesta = agente.indiceDeRespuesta(ChatRLAgentV2.getRespuestasCorrectas().get(pregunta));
+            etiquetas[i][indiceRespuesta == null ? 0 : indiceRespuesta] = 1.0;
+        }
+        return new DataSet(Nd4j.create(entradas), Nd4j.create(etiquetas));
+    }
+
+    /**
+     * Una época: cada réplica recorre su fragmento una vez, promediando cada "frecuenciaPromedio" minilotes
+     */
+    public void entrenarEpoca() throws InterruptedException, ExecutionException {
+        List<Iterator<DataSet>> lotes = new ArrayList<>();
+        for (DataSet fragmento : fragmentos) {
+            fragmento.shuffle();
+            lotes.add(fragmento.batchBy(tamanoLote).iterator());
+        }
+
+        boolean quedanLotes = true;
+        while (quedanLotes) {
+            List<Callable<Integer>> tareas = new ArrayList<>();
+            for (int k = 0; k < numReplicas; k++) {
+                final MultiLayerNetwork replica = replicas[k];
+                final Iterator<DataSet> it = lotes.get(k);
+                tareas.add(() -> {
+                    int ejemplos = 0;
+                    for (int paso = 0; paso < frecuenciaPromedio && it.hasNext(); paso++) {
+                        DataSet lote = it.next();
+                        replica.fit(lote);
+                        ejemplos += lote.numExamples();
+                    }
+                    return ejemplos;
+                });
+            }
+
+            // En las últimas rondas las réplicas con el fragmento agotado no entrenan y no cuentan
+            boolean[] entrenaron = new boolean[numReplicas];
+            List<Future<Integer>> resultados = hilos.invokeAll(tareas);
+            for (int k = 0; k < numReplicas; k++) {
+                int ejemplos = resultados.get(k).get();
+                ejemplosProcesados += ejemplos;
+                entrenaron[k] = ejemplos > 0;
+            }
+            promediarParametros(entrenaron);
+
+            quedanLotes = false;
+            for (Iterator<DataSet> it : lotes) {
+                quedanLotes |= it.hasNext();
+            }
+        }
+    }
+
+    /**
+     * Media de los parámetros de las réplicas que entrenaron en la ronda → maestro → réplicas
+     */
+    private void promediarParametros(boolean[] entrenaron) {
+        INDArray suma = null;
+        int activas = 0;
+        for (int k = 0; k < numReplicas; k++) {
+            if (!entrenaron[k]) continue;
+            if (suma == null) suma = replicas[k].params().dup();
+            else suma.addi(replicas[k].params());
+            activas++;
+        }
+        if (activas == 0) return;
+        suma.divi(activas);
+
+        maestro.setParams(suma);
+        for (MultiLayerNetwork replica : replicas) {
+            replica.setParams(suma);
+        }
+        promediosRealizados++;
+    }
+
+    /**
+     * Precisión del maestro sobre todo el dataset en una sola pasada por lotes
+     */
+    public double precisionMaestro() {
+        return precision(agente, maestro);
+    }
+
+    static double precision(ChatRLAgentV2 agente, MultiLayerNetwork red) {
+        List<String> preguntas = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().keySet());
+        double[][] entradas = new double[preguntas.size()][];
+        for (int i = 0; i < preguntas.size(); i++) {
+            entradas[i] = ChatRLAgentV2.preguntaAVector(preguntas.get(i));
+        }
+        INDArray predicciones = Nd4j.argMax(red.output(Nd4j.create(entradas)), 1);
+
+        int aciertos = 0;
+        for (int i = 0; i < preguntas.size(); i++) {
+            Integer esperado = agente.indiceDeRespuesta(ChatRLAgentV2.getRespuestasCorrectas().get(preguntas.get(i)));
+            if (esperado != null && predicciones.getInt(i) == esperado) aciertos++;
+        }
+        return aciertos * 100.0 / preguntas.size();
+    }
+
+    public long getEjemplosProcesados() {
+        return ejemplosProcesados;
+    }
+
+    public int getPromediosRealizados() {
+        return promediosRealizados;
+    }
+
+    public void cerrar() {
+        hilos.shutdown();
+    }
+
+    public static void main(String[] args) throws Exception {
+        String rutaJSON = args.length > 0 ? args[0] : "preguntas.json";
+        int epocas = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int frecuencia = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int lote = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        List<Integer> configuraciones = new ArrayList<>();
+        for (int k = 1; k < nucleos; k *= 2) {
+            configuraciones.add(k);
+        }
+        configuraciones.add(nucleos);
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  ⚡ ENTRENAMIENTO PARALELO (DATOS)      ║");
+        System.out.println("║  Réplicas + promedio de parámetros     ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("⚙️ Épocas: " + epocas + " | Promedio cada " + frecuencia + " lotes | Lote: " + lote + " | Núcleos: " + nucleos + "\n");
+
+        double tiempoBase = 0;
+        for (int replicas : configuraciones) {
+            ChatRLAgentV2 agente = new ChatRLAgentV2();
+            agente.inicializarRed();
+            EntrenadorParaleloV2 entrenador = new EntrenadorParaleloV2(agente, replicas, frecuencia, lote);
+
+            long inicio = System.nanoTime();
+            for (int ep = 0; ep < epocas; ep++) {
+                entrenador.entrenarEpoca();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            entrenador.cerrar();
+
+            if (replicas == 1) tiempoBase = segundos;
+            System.out.println("Réplicas " + replicas +
+                    " | Tiempo: " + String.format("%.2f", segundos) + " s" +
+                    " | Ejemplos/s: " + String.format("%.0f", entrenador.getEjemplosProcesados() / segundos) +
+                    " | Aceleración: " + String.format("%.2f", tiempoBase / segundos) + "x" +
+                    " | Promedios: " + entrenador.getPromediosRealizados() +
+                    " | Precisión: " + String.format("%.1f", entrenador.precisionMaestro()) + "%");
+        }
+
+        System.out.println("\n✅ Medición de escalado terminada.");
+    }
+}
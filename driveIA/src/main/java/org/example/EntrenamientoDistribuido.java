@@ -0,0 +1,111 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.dataset.DataSet;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lanza en localhost un ServidorParametros y N TrabajadorDistribuido como
+ * procesos separados, y compara su rendimiento con el entrenamiento en un solo proceso.
+ * El puerto sale de los argumentos; con 0 (por defecto) el servidor usa uno efímero y lo
+ * anuncia ("PUERTO n") antes de lanzar a los trabajadores.
+ */
+public class EntrenamientoDistribuido {
+
+    public static void main(String[] args) throws Exception {
+        int trabajadores = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        String modo = args.length > 1 ? args[1] : "sync";
+        int limiteRetraso = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int epocas = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int pasosLocales = 4;
+        int lote = 16;
+        int puerto = args.length > 4 ? Integer.parseInt(args[4]) : 0;
+        String rutaJSON = "preguntas.json";
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🖧 ENTRENAMIENTO DISTRIBUIDO LOCAL     ║");
+        System.out.println("║  Servidor de parámetros + trabajadores ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        // ========== UN SOLO PROCESO ==========
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+        ChatRLAgentV2 agente = new ChatRLAgentV2();
+        agente.inicializarRed();
+        MultiLayerNetwork red = agente.getModel();
+        DataSet todo = EntrenadorParaleloV2.crearFragmento(agente, 0, 1);
+
+        long inicio = System.nanoTime();
+        long ejemplos = 0;
+        for (int ep = 0; ep < epocas; ep++) {
+            todo.shuffle();
+            for (DataSet minilote : todo.batchBy(lote)) {
+                red.fit(minilote);
+                ejemplos += minilote.numExamples();
+            }
+        }
+        double segundosLocal = (System.nanoTime() - inicio) / 1e9;
+        double rendimientoLocal = ejemplos / segundosLocal;
+        double precisionLocal = EntrenadorParaleloV2.precision(agente, red);
+        System.out.println("🖥️ Un proceso | Ejemplos/s: " + String.format("%.0f", rendimientoLocal) +
+                " | Precisión: " + String.format("%.1f", precisionLocal) + "%\n");
+
+        // ========== DISTRIBUIDO ==========
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        String classpath = System.getProperty("java.class.path");
+
+        Process servidor = new ProcessBuilder(java, "-cp", classpath, ServidorParametros.class.getName(),
+                String.valueOf(puerto), String.valueOf(trabajadores), modo,
+                String.valueOf(limiteRetraso), rutaJSON)
+                .redirectErrorStream(true)
+                .start();
+
+        List<Process> procesos = new ArrayList<>();
+        double rendimientoDistribuido = 0;
+        double precisionDistribuida = 0;
+        boolean hayResultado = false;
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(servidor.getInputStream()))) {
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                if (linea.startsWith("PUERTO ")) {
+                    // Los trabajadores se lanzan cuando el servidor ya escucha en su puerto real
+                    int puertoReal = Integer.parseInt(linea.substring(7).trim());
+                    for (int id = 0; id < trabajadores; id++) {
+                        procesos.add(new ProcessBuilder(java, "-cp", classpath, TrabajadorDistribuido.class.getName(),
+                                String.valueOf(puertoReal), String.valueOf(id), String.valueOf(trabajadores),
+                                String.valueOf(epocas), String.valueOf(pasosLocales), String.valueOf(lote), rutaJSON)
+                                .inheritIO()
+                                .start());
+                    }
+                } else if (linea.startsWith("RESULTADO ")) {
+                    String[] partes = linea.split(" ");
+                    rendimientoDistribuido = Double.parseDouble(partes[1]);
+                    precisionDistribuida = Double.parseDouble(partes[2]);
+                    hayResultado = true;
+                } else {
+                    System.out.println(linea);
+                }
+            }
+        }
+        int codigo = servidor.waitFor();
+        if (codigo != 0 || !hayResultado) {
+            for (Process p : procesos) p.destroyForcibly();
+            throw new IllegalStateException("El servidor de parámetros terminó sin resultado (código " + codigo + ")" +
+                    (procesos.isEmpty() ? ": no llegó a escuchar en el puerto " + puerto : ""));
+        }
+        for (Process p : procesos) {
+            p.waitFor();
+        }
+
+        System.out.println("\n╔════════════════════════════════════════╗");
+        System.out.println("║          📊 COMPARATIVA                ║");
+        System.out.println("║  Un proceso:  " + String.format("%.0f", rendimientoLocal) + " ej/s, " + String.format("%.1f", precisionLocal) + "%");
+        System.out.println("║  " + trabajadores + " procesos (" + modo + "): " + String.format("%.0f", rendimientoDistribuido) + " ej/s, " + String.format("%.1f", precisionDistribuida) + "%");
+        System.out.println("║  Aceleración: " + String.format("%.2f", rendimientoDistribuido / rendimientoLocal) + "x");
+        System.out.println("╚════════════════════════════════════════╝");
+    }
+}
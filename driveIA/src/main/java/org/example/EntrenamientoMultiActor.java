@@ -0,0 +1,250 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Entrenamiento asíncrono de RLAgent al estilo A3C/IMPALA: varios hilos actores juegan en
+ * su propia copia del gridworld con una copia de solo lectura de la política, y mandan
+ * fragmentos de trayectoria por una cola sin bloqueos a un único aprendiz que hace
+ * actualizaciones por lotes (Q-learning, que tolera que la política de los actores vaya
+ * unas versiones por detrás).
+ *
+ * El aprendiz publica una copia de los parámetros cada PUBLICAR_CADA actualizaciones y cada
+ * actor la recoge cada REFRESCAR_CADA pasos. Cada actor explora con su propio epsilon fijo
+ * (de 0.4 a 0.4^8, como en Ape-X) para que entre todos cubran explorar y explotar.
+ */
+public class EntrenamientoMultiActor {
+
+    private static final int LARGO_FRAGMENTO = 32;
+    private static final int TAMANO_LOTE = 64;
+    private static final int PUBLICAR_CADA = 10;
+    private static final int REFRESCAR_CADA = 100;
+    private static final int MAX_PENDIENTES = 256;
+    // Esperas: unas vueltas activas y después dormir, para no quemar un núcleo con la cola vacía/llena
+    private static final int VUELTAS_ACTIVAS = 100;
+    private static final long ESPERA_NANOS = 50_000;
+    private static final String WS_ACTOR = "WS_ACTOR";
+
+    /**
+     * Fragmento de trayectoria de un actor: transiciones consecutivas en arrays primitivos
+     */
+    static final class Fragmento {
+        final int[] x = new int[LARGO_FRAGMENTO];
+        final int[] y = new int[LARGO_FRAGMENTO];
+        final int[] accion = new int[LARGO_FRAGMENTO];
+        final double[] recompensa = new double[LARGO_FRAGMENTO];
+        final int[] siguienteX = new int[LARGO_FRAGMENTO];
+        final int[] siguienteY = new int[LARGO_FRAGMENTO];
+        final boolean[] terminal = new boolean[LARGO_FRAGMENTO];
+        int tamano;
+    }
+
+    // Parámetros publicados por el aprendiz; nunca se modifican después de publicarse
+    private static final class Publicacion {
+        final long version;
+        final INDArray parametros;
+
+        Publicacion(long version, INDArray parametros) {
+            this.version = version;
+            this.parametros = parametros;
+        }
+    }
+
+    private final RLAgent aprendiz;
+    private final int numActores;
+    private final long semilla;
+    private final ConcurrentLinkedQueue<Fragmento> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicReference<Publicacion> publicada = new AtomicReference<>();
+    private final AtomicBoolean activo = new AtomicBoolean();
+    private final AtomicLong pasosEntorno = new AtomicLong();
+    private long actualizaciones;
+
+    public EntrenamientoMultiActor(RLAgent aprendiz, int numActores, long semilla) {
+        this.aprendiz = aprendiz;
+        aprendiz.reservarLotesExternos(TAMANO_LOTE);
+        this.numActores = numActores;
+        this.semilla = semilla;
+    }
+
+    /**
+     * Una espera de un bucle de sondeo: activa las primeras VUELTAS_ACTIVAS, luego parkNanos
+     */
+    private static void esperar(int vueltas) {
+        if (vueltas < VUELTAS_ACTIVAS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(ESPERA_NANOS);
+        }
+    }
+
+    private static double epsilonActor(int i, int n) {
+        return n == 1 ? 0.4 : Math.pow(0.4, 1 + 7.0 * i / (n - 1));
+    }
+
+    private void actuar(int id, MultiLayerNetwork politica) {
+        GridWorld grid = GridWorld.clasico();
+        Random random = new Random(semilla + id);
+        double epsilon = epsilonActor(id, numActores);
+
+        long version = -1;
+        INDArray entrada = Nd4j.create(politica.getLayerWiseConfigurations().getDataType(), 1, 2);
+
+        Fragmento fragmento = new Fragmento();
+        long pasos = 0;
+        grid.reset();
+        while (activo.get()) {
+            if (pasos % REFRESCAR_CADA == 0) {
+                Publicacion p = publicada.get();
+                if (p != null && p.version != version) {
+                    politica.setParams(p.parametros);
+                    version = p.version;
+                }
+            }
+
+            int x = grid.getX(), y = grid.getY();
+            int accion;
+            if (random.nextDouble() < epsilon) {
+                accion = random.nextInt(4);
+            } else {
+                entrada.putScalar(0, x);
+                entrada.putScalar(1, y);
+                try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS_ACTOR)) {
+                    accion = EspacioTrabajo.argMax(politica.output(entrada, false, ws));
+                }
+            }
+            double recompensa = grid.step(accion);
+            pasos++;
+
+            int k = fragmento.tamano++;
+            fragmento.x[k] = x;
+            fragmento.y[k] = y;
+            fragmento.accion[k] = accion;
+            fragmento.recompensa[k] = recompensa;
+            fragmento.siguienteX[k] = grid.getX();
+            fragmento.siguienteY[k] = grid.getY();
+            // Agotar el límite de pasos no es un estado terminal, llegar a la meta sí
+            fragmento.terminal[k] = grid.enMeta();
+            if (grid.isDone()) grid.reset();
+
+            if (fragmento.tamano == LARGO_FRAGMENTO) {
+                // Si el aprendiz no da abasto el actor espera en lugar de llenar la memoria
+                for (int vueltas = 0; pendientes.get() >= MAX_PENDIENTES && activo.get(); vueltas++) {
+                    esperar(vueltas);
+                }
+                cola.offer(fragmento);
+                pendientes.incrementAndGet();
+                pasosEntorno.addAndGet(LARGO_FRAGMENTO);
+                fragmento = new Fragmento();
+            }
+        }
+    }
+
+    /**
+     * Lanza los actores, aprende durante "segundos" en el hilo actual y los para.
+     * Devuelve {pasos de entorno/s, actualizaciones/s}.
+     */
+    public double[] entrenar(double segundos) throws InterruptedException {
+        publicada.set(new Publicacion(0, aprendiz.getModel().params().dup()));
+        activo.set(true);
+        List<Thread> actores = new ArrayList<>();
+        for (int i = 0; i < numActores; i++) {
+            final int id = i;
+            // La copia se hace aquí, antes de que el aprendiz empiece a modificar la red
+            MultiLayerNetwork politica = aprendiz.getModel().clone();
+            Thread t = new Thread(() -> actuar(id, politica), "actor-" + i);
+            t.setDaemon(true);
+            actores.add(t);
+            t.start();
+        }
+
+        int[] x = new int[TAMANO_LOTE], y = new int[TAMANO_LOTE], accion = new int[TAMANO_LOTE];
+        int[] siguienteX = new int[TAMANO_LOTE], siguienteY = new int[TAMANO_LOTE];
+        double[] recompensa = new double[TAMANO_LOTE];
+        boolean[] terminal = new boolean[TAMANO_LOTE];
+        int enLote = 0;
+
+        long pasosInicio = pasosEntorno.get();
+        long actualizacionesInicio = actualizaciones;
+        long inicio = System.nanoTime();
+        long fin = inicio + (long) (segundos * 1e9);
+        int vacias = 0;
+        while (System.nanoTime() < fin) {
+            Fragmento f = cola.poll();
+            if (f == null) {
+                esperar(vacias++);
+                continue;
+            }
+            vacias = 0;
+            pendientes.decrementAndGet();
+            for (int k = 0; k < f.tamano; k++) {
+                x[enLote] = f.x[k];
+                y[enLote] = f.y[k];
+                accion[enLote] = f.accion[k];
+                recompensa[enLote] = f.recompensa[k];
+                siguienteX[enLote] = f.siguienteX[k];
+                siguienteY[enLote] = f.siguienteY[k];
+                terminal[enLote] = f.terminal[k];
+                if (++enLote == TAMANO_LOTE) {
+                    aprendiz.aprenderLote(x, y, accion, recompensa, siguienteX, siguienteY, terminal, enLote);
+                    enLote = 0;
+                    if (++actualizaciones % PUBLICAR_CADA == 0) {
+                        publicada.set(new Publicacion(actualizaciones, aprendiz.getModel().params().dup()));
+                    }
+                }
+            }
+        }
+        double transcurridos = (System.nanoTime() - inicio) / 1e9;
+
+        activo.set(false);
+        for (Thread t : actores) t.join();
+        cola.clear();
+        pendientes.set(0);
+
+        return new double[]{
+                (pasosEntorno.get() - pasosInicio) / transcurridos,
+                (actualizaciones - actualizacionesInicio) / transcurridos
+        };
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        double segundos = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        int maxActores = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🎭 ENTRENAMIENTO MULTI-ACTOR           ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("⚙️ Fragmentos de " + LARGO_FRAGMENTO + " pasos | lotes de " + TAMANO_LOTE +
+                " | " + segundos + " s por configuración\n");
+
+        for (int actores = 1; actores <= maxActores; actores *= 2) {
+            RLAgent agente = new RLAgent(42L);
+            EntrenamientoMultiActor entrenamiento = new EntrenamientoMultiActor(agente, actores, 42L);
+            double[] ritmo = entrenamiento.entrenar(segundos);
+
+            // Política final en voraz sobre el tablero clásico (óptimo: 3 pasos)
+            agente.disableExploration();
+            GridWorld grid = GridWorld.clasico();
+            grid.reset();
+            while (!grid.isDone()) {
+                grid.step(agente.selectAction(grid.getX(), grid.getY()));
+            }
+            System.out.println(String.format("  %2d actores | %10.0f pasos de entorno/s | %7.1f actualizaciones/s | " +
+                            "política final: %s en %d pasos",
+                    actores, ritmo[0], ritmo[1], grid.enMeta() ? "✅ meta" : "❌ sin meta", grid.getPasos()));
+        }
+    }
+}
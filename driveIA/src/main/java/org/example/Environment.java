@@ -0,0 +1,24 @@
+package org.example;
+
+/**
+ * Entorno episódico de aprendizaje por refuerzo con acciones discretas.
+ * El estado se copia a un buffer primitivo que reserva quien llama.
+ */
+public interface Environment {
+
+    int numAcciones();
+
+    int tamanoEstado();
+
+    // Empieza un episodio nuevo
+    void reset();
+
+    // Aplica la acción y devuelve la recompensa
+    double step(int accion);
+
+    // El episodio ha terminado (meta alcanzada o límite de pasos superado)
+    boolean isDone();
+
+    // Copia el estado actual en destino[0 .. tamanoEstado()-1]
+    void observar(double[] destino);
+}
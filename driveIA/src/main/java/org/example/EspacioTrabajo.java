@@ -0,0 +1,97 @@
+package org.example;
+
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.memory.conf.WorkspaceConfiguration;
+import org.nd4j.linalg.api.memory.enums.AllocationPolicy;
+import org.nd4j.linalg.api.memory.enums.LearningPolicy;
+import org.nd4j.linalg.api.memory.enums.SpillPolicy;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.Arrays;
+
+/**
+ * Workspace de ND4J y utilidades para los caminos calientes de los agentes (learn, selectAction...).
+ *
+ * Cada agente preasigna sus buffers de entrada/objetivo y los rellena en el sitio; las salidas
+ * de model.output(x, false, ws) se dejan en un workspace que se recicla en cada paso. Así, en
+ * régimen estable, no se crean INDArrays nuevos que tengan que recoger el GC y el deallocator.
+ *
+ * Importante: los arrays del workspace dejan de ser válidos al cerrarlo, y model.fit(...) se
+ * llama siempre con el workspace cerrado (DL4J gestiona los suyos durante el entrenamiento).
+ */
+final class EspacioTrabajo {
+
+    static final WorkspaceConfiguration CONFIGURACION = WorkspaceConfiguration.builder()
+            .initialSize(0)
+            .policyLearning(LearningPolicy.FIRST_LOOP)   // el primer ciclo mide cuánto hace falta
+            .policyAllocation(AllocationPolicy.OVERALLOCATE)
+            .overallocationLimit(0.2)
+            .policySpill(SpillPolicy.REALLOCATE)
+            .build();
+
+    private EspacioTrabajo() {
+    }
+
+    static MemoryWorkspace abrir(String id) {
+        return Nd4j.getWorkspaceManager().getAndActivateWorkspace(CONFIGURACION, id);
+    }
+
+    static int argMax(INDArray fila) {
+        int mejor = 0;
+        double valorMejor = fila.getDouble(0);
+        for (int j = 1, n = (int) fila.length(); j < n; j++) {
+            double v = fila.getDouble(j);
+            if (v > valorMejor) {
+                valorMejor = v;
+                mejor = j;
+            }
+        }
+        return mejor;
+    }
+
+    static double max(INDArray fila) {
+        return fila.getDouble(argMax(fila));
+    }
+
+    static int argMaxFila(INDArray matriz, int fila) {
+        int mejor = 0;
+        for (int j = 1, n = (int) matriz.columns(); j < n; j++) {
+            if (matriz.getDouble(fila, j) > matriz.getDouble(fila, mejor)) mejor = j;
+        }
+        return mejor;
+    }
+
+    /**
+     * Codificación "una neurona por letra" (ChatRLAgent, ChatRLAgentV2) escrita en destino[0, 0..25]
+     * sin pasar por replaceAll ni arrays intermedios
+     */
+    static void letrasPresentes(String pregunta, INDArray destino) {
+        destino.assign(0);
+        for (int i = 0, n = pregunta.length(); i < n; i++) {
+            char c = Character.toLowerCase(pregunta.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                destino.putScalar(c - 'a', 1.0);
+            }
+        }
+    }
+
+    /**
+     * Codificación por frecuencia de letras (ChatRLAgentMejorado, ChatRLAgentOptimo);
+     * "conteos" es un int[26] del agente que se reutiliza
+     */
+    static void frecuenciaLetras(String pregunta, INDArray destino, int[] conteos) {
+        Arrays.fill(conteos, 0);
+        int letras = 0;
+        for (int i = 0, n = pregunta.length(); i < n; i++) {
+            char c = Character.toLowerCase(pregunta.charAt(i));
+            if (c >= 'a' && c <= 'z') {
+                conteos[c - 'a']++;
+                letras++;
+            }
+        }
+        for (int j = 0; j < conteos.length; j++) {
+            destino.putScalar(j, letras == 0 ? 0.0 : (double) conteos[j] / letras);
+        }
+    }
+}
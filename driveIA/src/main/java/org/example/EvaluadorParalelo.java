@@ -0,0 +1,283 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Evalúa un conjunto de preguntas por lotes y en varios hilos, sin imprimir nada por pregunta.
+ *
+ * Cada hilo trabaja con su propio clon de la red sobre un tramo contiguo de preguntas y
+ * calcula precisión, precisión top-k, recompensa media (ChatRLAgentV2.calcularRecompensa) y
+ * una matriz de confusión dispersa (esperada → predicha) que al final se suman.
+ * Conviene lanzar con OMP_NUM_THREADS=1 para que los hilos no compitan por los núcleos de BLAS.
+ */
+public class EvaluadorParalelo {
+
+    /**
+     * Resultado agregado de una evaluación
+     */
+    public static final class Informe {
+        public final int[] k;
+        long preguntas;
+        long aciertos;
+        final long[] aciertosTopK;
+        double recompensaTotal;
+        double segundos;
+        // clave = (esperada << 32) | predicha
+        final Map<Long, long[]> confusion = new HashMap<>();
+        int[] predichas;   // id predicho para cada pregunta, en el orden de entrada
+
+        Informe(int[] k) {
+            this.k = k;
+            this.aciertosTopK = new long[k.length];
+        }
+
+        void sumar(Informe otro) {
+            preguntas += otro.preguntas;
+            aciertos += otro.aciertos;
+            recompensaTotal += otro.recompensaTotal;
+            for (int i = 0; i < k.length; i++) {
+                aciertosTopK[i] += otro.aciertosTopK[i];
+            }
+            for (Map.Entry<Long, long[]> celda : otro.confusion.entrySet()) {
+                confusion.computeIfAbsent(celda.getKey(), c -> new long[1])[0] += celda.getValue()[0];
+            }
+        }
+
+        /**
+         * Id de respuesta predicho para preguntas[i]
+         */
+        public int prediccion(int i) {
+            return predichas[i];
+        }
+
+        public double precision() {
+            return preguntas == 0 ? 0 : aciertos * 100.0 / preguntas;
+        }
+
+        public double precisionTopK(int i) {
+            return preguntas == 0 ? 0 : aciertosTopK[i] * 100.0 / preguntas;
+        }
+
+        public double recompensaMedia() {
+            return preguntas == 0 ? 0 : recompensaTotal / preguntas;
+        }
+
+        public double preguntasPorSegundo() {
+            return preguntas / Math.max(segundos, 1e-9);
+        }
+
+        /**
+         * Métricas + solo las celdas fuera de la diagonal (los errores), de más a menos frecuentes
+         */
+        public JSONObject toJSON() {
+            JSONObject topK = new JSONObject();
+            for (int i = 0; i < k.length; i++) {
+                topK.put(String.valueOf(k[i]), redondear(precisionTopK(i)));
+            }
+            List<Map.Entry<Long, long[]>> errores = new ArrayList<>();
+            for (Map.Entry<Long, long[]> celda : confusion.entrySet()) {
+                if (esperada(celda.getKey()) != predicha(celda.getKey())) errores.add(celda);
+            }
+            errores.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+            JSONArray celdas = new JSONArray();
+            for (Map.Entry<Long, long[]> celda : errores) {
+                celdas.put(new JSONArray().put(esperada(celda.getKey())).put(predicha(celda.getKey())).put(celda.getValue()[0]));
+            }
+            return new JSONObject()
+                    .put("preguntas", preguntas)
+                    .put("precision", redondear(precision()))
+                    .put("topK", topK)
+                    .put("recompensaMedia", redondear(recompensaMedia()))
+                    .put("segundos", redondear(segundos))
+                    .put("preguntasPorSegundo", Math.round(preguntasPorSegundo()))
+                    .put("celdasConfusion", confusion.size())
+                    .put("errores", celdas);
+        }
+
+        /**
+         * Matriz de confusión dispersa completa: esperada,predicha,cuenta
+         */
+        public void escribirCSV(Path ruta) throws IOException {
+            List<Long> claves = new ArrayList<>(confusion.keySet());
+            Collections.sort(claves);
+            try (BufferedWriter salida = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8)) {
+                salida.write("esperada,predicha,cuenta\n");
+                for (long clave : claves) {
+                    salida.write(esperada(clave) + "," + predicha(clave) + "," + confusion.get(clave)[0] + "\n");
+                }
+            }
+        }
+
+        private static int esperada(long clave) {
+            return (int) (clave >>> 32);
+        }
+
+        private static int predicha(long clave) {
+            return (int) clave;
+        }
+
+        private static double redondear(double valor) {
+            return Math.round(valor * 1000) / 1000.0;
+        }
+    }
+
+    private final MultiLayerNetwork red;
+    private final List<String> respuestas;
+    private final Function<String, double[]> vectorizador;
+    private final int hilos;
+    private final int tamanoLote;
+    private final int[] k;
+
+    /**
+     * @param respuestas   texto de cada id de salida de la red
+     * @param vectorizador codificación de la pregunta que usa el agente
+     * @param k            cortes para la precisión top-k (p. ej. 1, 3, 5)
+     */
+    public EvaluadorParalelo(MultiLayerNetwork red, List<String> respuestas, Function<String, double[]> vectorizador,
+                             int hilos, int tamanoLote, int... k) {
+        this.red = red;
+        this.respuestas = respuestas;
+        this.vectorizador = vectorizador;
+        this.hilos = hilos;
+        this.tamanoLote = tamanoLote;
+        this.k = k;
+    }
+
+    /**
+     * Evalúa preguntas[i] contra el id de respuesta esperadas[i]
+     */
+    public Informe evaluar(String[] preguntas, int[] esperadas) throws Exception {
+        long inicio = System.nanoTime();
+        int n = preguntas.length;
+        int porHilo = (n + hilos - 1) / hilos;
+        int[] predichas = new int[n];   // cada hilo escribe solo su tramo
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        Informe total = new Informe(k);
+        try {
+            List<Future<Informe>> futuros = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                int desde = h * porHilo;
+                int hasta = Math.min(n, desde + porHilo);
+                if (desde >= hasta) break;
+                // Clon por hilo: MultiLayerNetwork no es seguro para output() concurrente
+                MultiLayerNetwork copia = red.clone();
+                futuros.add(pool.submit(() -> evaluarTramo(copia, preguntas, esperadas, predichas, desde, hasta)));
+            }
+            for (Future<Informe> f : futuros) {
+                total.sumar(f.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        total.segundos = (System.nanoTime() - inicio) / 1e9;
+        total.predichas = predichas;
+        return total;
+    }
+
+    private Informe evaluarTramo(MultiLayerNetwork copia, String[] preguntas, int[] esperadas, int[] predichas,
+                                 int desde, int hasta) {
+        Informe informe = new Informe(k);
+        // La recompensa solo depende del par (esperada, predicha): se calcula una vez por par
+        Map<Long, Double> recompensas = new HashMap<>();
+
+        for (int inicioLote = desde; inicioLote < hasta; inicioLote += tamanoLote) {
+            int filas = Math.min(tamanoLote, hasta - inicioLote);
+            double[][] entrada = new double[filas][];
+            for (int i = 0; i < filas; i++) {
+                entrada[i] = vectorizador.apply(preguntas[inicioLote + i]);
+            }
+            double[][] salida = copia.output(Nd4j.create(entrada)).toDoubleMatrix();
+
+            for (int i = 0; i < filas; i++) {
+                double[] fila = salida[i];
+                int esperada = esperadas[inicioLote + i];
+
+                int predicha = 0;
+                int mejores = 0;   // salidas estrictamente mayores que la de la respuesta esperada
+                double valorEsperada = fila[esperada];
+                for (int j = 0; j < fila.length; j++) {
+                    if (fila[j] > fila[predicha]) predicha = j;
+                    if (fila[j] > valorEsperada) mejores++;
+                }
+
+                predichas[inicioLote + i] = predicha;
+                informe.preguntas++;
+                if (predicha == esperada) informe.aciertos++;
+                for (int c = 0; c < k.length; c++) {
+                    if (mejores < k[c]) informe.aciertosTopK[c]++;
+                }
+
+                long clave = ((long) esperada << 32) | predicha;
+                informe.confusion.computeIfAbsent(clave, c -> new long[1])[0]++;
+                Double recompensa = recompensas.get(clave);
+                if (recompensa == null) {
+                    recompensa = ChatRLAgentV2.calcularRecompensa(preguntas[inicioLote + i],
+                            respuestas.get(predicha), respuestas.get(esperada));
+                    recompensas.put(clave, recompensa);
+                }
+                informe.recompensaTotal += recompensa;
+            }
+        }
+        return informe;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String rutaJSON = args.length > 0 ? args[0] : "preguntas.json";
+        int total = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int hilos = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int episodios = 50;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  ⚡ EVALUACIÓN PARALELA POR LOTES       ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+        ChatRLAgentV2 agente = new ChatRLAgentV2(42L);
+        agente.inicializarRed();
+        for (int ep = 0; ep < episodios; ep++) agente.entrenarEpoca();
+
+        // Conjunto de evaluación: el dataset repetido hasta "total" preguntas
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+        String[] preguntas = new String[total];
+        int[] esperadas = new int[total];
+        for (int i = 0; i < total; i++) {
+            Map.Entry<String, String> par = pares.get(i % pares.size());
+            preguntas[i] = par.getKey();
+            esperadas[i] = agente.indiceDeRespuesta(par.getValue());
+        }
+
+        EvaluadorParalelo evaluador = new EvaluadorParalelo(agente.getModel(), ChatRLAgentV2.getRespuestasUnicas(),
+                ChatRLAgentV2::preguntaAVector, hilos, 4096, 1, 3, 5);
+        Informe informe = evaluador.evaluar(preguntas, esperadas);
+
+        System.out.println("📊 Preguntas: " + informe.preguntas + " | Hilos: " + hilos);
+        System.out.println("  Precisión:        " + String.format("%.2f", informe.precision()) + "%");
+        for (int i = 0; i < informe.k.length; i++) {
+            System.out.println("  Top-" + informe.k[i] + ":            " + String.format("%.2f", informe.precisionTopK(i)) + "%");
+        }
+        System.out.println("  Recompensa media: " + String.format("%.2f", informe.recompensaMedia()) + "/10");
+        System.out.println("  Celdas confusión: " + informe.confusion.size());
+        System.out.println("⏱️ " + String.format("%.2f", informe.segundos) + " s (" +
+                String.format("%.0f", informe.preguntasPorSegundo()) + " preguntas/s)");
+
+        Files.write(Paths.get("evaluacion.json"), informe.toJSON().toString().getBytes(StandardCharsets.UTF_8));
+        informe.escribirCSV(Paths.get("evaluacion.csv"));
+        System.out.println("💾 Informe: evaluacion.json, evaluacion.csv");
+    }
+}
@@ -0,0 +1,174 @@
+package org.example;
+
+import java.util.Random;
+
+/**
+ * Gridworld de ancho x alto: 4 acciones (UP, DOWN, LEFT, RIGHT), +10 al llegar a
+ * una meta y -0.1 en cualquier otro paso. Moverse fuera del tablero o contra un
+ * obstáculo deja al agente donde estaba.
+ *
+ * Las metas y los obstáculos se guardan como boolean[] indexado por celda
+ * (y * ancho + x), así que cada paso es O(1) sea cual sea el tamaño del tablero.
+ */
+public class GridWorld implements Environment {
+
+    public static final double RECOMPENSA_META = 10;
+    public static final double RECOMPENSA_PASO = -0.1;
+
+    private final int ancho;
+    private final int alto;
+    private final int limitePasos;
+    private final boolean[] metas;
+    private final boolean[] obstaculos;
+
+    private int inicioX = 0, inicioY = 0;
+
+    // Estado del episodio
+    private int x, y;
+    private int pasos;
+    private boolean enMeta;
+
+    public GridWorld(int ancho, int alto, int limitePasos) {
+        if (ancho < 1 || alto < 1) {
+            throw new IllegalArgumentException("El tablero debe tener al menos 1x1 celdas");
+        }
+        this.ancho = ancho;
+        this.alto = alto;
+        this.limitePasos = limitePasos;
+        this.metas = new boolean[ancho * alto];
+        this.obstaculos = new boolean[ancho * alto];
+        reset();
+    }
+
+    // El tablero original de Main: 4x4, salida en (0,0), meta en (3,0), 50 pasos
+    public static GridWorld clasico() {
+        GridWorld grid = new GridWorld(4, 4, 50);
+        grid.agregarMeta(3, 0);
+        return grid;
+    }
+
+    public GridWorld agregarMeta(int mx, int my) {
+        int c = celda(mx, my);
+        if (obstaculos[c]) {
+            throw new IllegalArgumentException("No se puede poner una meta en un obstáculo");
+        }
+        metas[c] = true;
+        return this;
+    }
+
+    public GridWorld agregarObstaculo(int ox, int oy) {
+        int c = celda(ox, oy);
+        if (metas[c] || (ox == inicioX && oy == inicioY)) {
+            throw new IllegalArgumentException("No se puede poner un obstáculo en la salida o en una meta");
+        }
+        obstaculos[c] = true;
+        return this;
+    }
+
+    public GridWorld setInicio(int sx, int sy) {
+        if (obstaculos[celda(sx, sy)]) {
+            throw new IllegalArgumentException("La salida no puede ser un obstáculo");
+        }
+        inicioX = sx;
+        inicioY = sy;
+        reset();
+        return this;
+    }
+
+    /**
+     * Pone obstáculos aleatorios con la densidad indicada (sin tocar salida ni metas)
+     */
+    public GridWorld agregarObstaculosAleatorios(double densidad, long semilla) {
+        Random random = new Random(semilla);
+        for (int c = 0; c < obstaculos.length; c++) {
+            boolean esInicio = c == inicioY * ancho + inicioX;
+            if (!metas[c] && !esInicio && random.nextDouble() < densidad) {
+                obstaculos[c] = true;
+            }
+        }
+        return this;
+    }
+
+    private int celda(int cx, int cy) {
+        if (cx < 0 || cx >= ancho || cy < 0 || cy >= alto) {
+            throw new IllegalArgumentException("Celda fuera del tablero: (" + cx + "," + cy + ")");
+        }
+        return cy * ancho + cx;
+    }
+
+    @Override
+    public int numAcciones() {
+        return 4;
+    }
+
+    @Override
+    public int tamanoEstado() {
+        return 2;
+    }
+
+    @Override
+    public void reset() {
+        x = inicioX;
+        y = inicioY;
+        pasos = 0;
+        enMeta = false;
+    }
+
+    @Override
+    public double step(int accion) {
+        int newX = x, newY = y;
+        switch (accion) {
+            case 0 -> newY--; // UP
+            case 1 -> newY++; // DOWN
+            case 2 -> newX--; // LEFT
+            case 3 -> newX++; // RIGHT
+            default -> throw new IllegalArgumentException("Acción no válida: " + accion);
+        }
+
+        newX = Math.max(0, Math.min(ancho - 1, newX));
+        newY = Math.max(0, Math.min(alto - 1, newY));
+        if (!obstaculos[newY * ancho + newX]) {
+            x = newX;
+            y = newY;
+        }
+        pasos++;
+
+        enMeta = metas[y * ancho + x];
+        return enMeta ? RECOMPENSA_META : RECOMPENSA_PASO;
+    }
+
+    @Override
+    public boolean isDone() {
+        return enMeta || pasos > limitePasos;
+    }
+
+    @Override
+    public void observar(double[] destino) {
+        destino[0] = x;
+        destino[1] = y;
+    }
+
+    public boolean enMeta() {
+        return enMeta;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getPasos() {
+        return pasos;
+    }
+
+    public int getAncho() {
+        return ancho;
+    }
+
+    public int getAlto() {
+        return alto;
+    }
+}
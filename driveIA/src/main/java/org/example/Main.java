@@ -5,47 +5,27 @@ public class Main {
     public static void main(String[] args) {
 
         RLAgent agent = new RLAgent();
+        GridWorld grid = GridWorld.clasico(); // 4x4, inicio (0,0), meta (3,0)
 
         int episodes = 200;
 
         for (int e = 1; e <= episodes; e++) {
 
-            int x = 0, y = 0; // inicio
-            int goalX = 3, goalY = 0;
+            grid.reset();
 
-            int steps = 0;
-
-            while (true) {
+            while (!grid.isDone()) {
 
+                int x = grid.getX(), y = grid.getY();
                 int action = agent.selectAction(x, y);
 
-                int newX = x, newY = y;
-
-                switch (action) {
-                    case 0 -> newY--; // UP
-                    case 1 -> newY++; // DOWN
-                    case 2 -> newX--; // LEFT
-                    case 3 -> newX++; // RIGHT
-                }
-
-                newX = Math.max(0, Math.min(3, newX));
-                newY = Math.max(0, Math.min(3, newY));
-
-                double reward = (newX == goalX && newY == goalY) ? 10 : -0.1;
+                double reward = grid.step(action);
 
-                agent.learn(x, y, action, reward, newX, newY);
-
-                x = newX;
-                y = newY;
-                steps++;
-
-                if (reward == 10 || steps > 50) break;
+                agent.learn(x, y, action, reward, grid.getX(), grid.getY());
             }
 
-            System.out.println("Episodio " + e + " : pasos = " + steps);
+            System.out.println("Episodio " + e + " : pasos = " + grid.getPasos());
         }
 
         System.out.println("\n✅ Entrenamiento terminado.");
     }
 }
-
@@ -0,0 +1,126 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Memoria de ensayo (rehearsal) de tamaño acotado para el aprendizaje continuo.
+ *
+ * Guarda preguntas ya aprendidas estratificadas por id de respuesta: cada respuesta
+ * tiene un reservorio (algoritmo R) con cuota = capacidad / número de respuestas,
+ * mínimo 1. Al aparecer respuestas nuevas la cuota baja y los reservorios se recortan
+ * al azar, así que el total nunca pasa de max(capacidad, número de respuestas).
+ */
+public class MemoriaEnsayo {
+
+    private final int capacidad;
+    private final Random random;
+
+    private final Map<Integer, List<String>> estratos = new HashMap<>();
+    private final Map<Integer, Integer> vistos = new HashMap<>();
+    private final List<Integer> ids = new ArrayList<>();  // para elegir estrato al azar en O(1)
+    private int tamano = 0;
+
+    public MemoriaEnsayo(int capacidad, long semilla) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser >= 1");
+        }
+        this.capacidad = capacidad;
+        this.random = new Random(semilla);
+    }
+
+    private int cuota() {
+        return Math.max(1, capacidad / Math.max(1, estratos.size()));
+    }
+
+    public void agregar(String pregunta, int idRespuesta) {
+        List<String> estrato = estratos.get(idRespuesta);
+        if (estrato == null) {
+            estrato = new ArrayList<>();
+            estratos.put(idRespuesta, estrato);
+            ids.add(idRespuesta);
+            recortar();
+        }
+
+        int cuota = cuota();
+        int n = vistos.merge(idRespuesta, 1, Integer::sum);
+        if (estrato.size() < cuota) {
+            estrato.add(pregunta);
+            tamano++;
+        } else {
+            int j = random.nextInt(n);
+            if (j < cuota) {
+                estrato.set(j, pregunta);
+            }
+        }
+    }
+
+    /**
+     * Quita la pregunta del estrato de idRespuesta si está guardada (p. ej. al reaprenderla con
+     * otra respuesta, para que el ensayo no siga reforzando la antigua). Devuelve si estaba.
+     */
+    public boolean quitar(String pregunta, int idRespuesta) {
+        List<String> estrato = estratos.get(idRespuesta);
+        if (estrato == null) return false;
+        int i = estrato.indexOf(pregunta);
+        if (i < 0) return false;
+        estrato.set(i, estrato.get(estrato.size() - 1));
+        estrato.remove(estrato.size() - 1);
+        tamano--;
+        return true;
+    }
+
+    // Tras bajar la cuota, elimina elementos al azar de los estratos que la superan
+    private void recortar() {
+        int cuota = cuota();
+        for (List<String> estrato : estratos.values()) {
+            while (estrato.size() > cuota) {
+                int i = random.nextInt(estrato.size());
+                estrato.set(i, estrato.get(estrato.size() - 1));
+                estrato.remove(estrato.size() - 1);
+                tamano--;
+            }
+        }
+    }
+
+    /**
+     * Muestra estratificada: elige respuesta al azar y luego una de sus preguntas guardadas.
+     * Rellena preguntas[0..n-1] e idsRespuesta[0..n-1]; devuelve cuántas ha podido sacar.
+     */
+    public int muestrear(int n, String[] preguntas, int[] idsRespuesta) {
+        if (tamano == 0) return 0;
+        int k = 0;
+        while (k < n) {
+            int id = ids.get(random.nextInt(ids.size()));
+            List<String> estrato = estratos.get(id);
+            if (estrato.isEmpty()) continue;
+            preguntas[k] = estrato.get(random.nextInt(estrato.size()));
+            idsRespuesta[k] = id;
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Todo el contenido actual (acotado), para medir la precisión sobre lo aprendido antes
+     */
+    public void recorrer(ObjIntConsumer<String> consumidor) {
+        for (Map.Entry<Integer, List<String>> entrada : estratos.entrySet()) {
+            for (String pregunta : entrada.getValue()) {
+                consumidor.accept(pregunta, entrada.getKey());
+            }
+        }
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import java.util.Random;
+
+/**
+ * Memoria de experiencia priorizada (PER) para el gridworld.
+ *
+ * Las transiciones se guardan en arrays primitivos circulares y se muestrean con
+ * probabilidad p_i^alfa / suma(p^alfa) mediante un SumTree. Cada muestra lleva su
+ * peso de importancia w_i = (N * P(i))^-beta normalizado por el máximo, y beta
+ * se acerca a 1 a lo largo del entrenamiento.
+ */
+public class MemoriaPriorizada {
+
+    private static final double EPSILON_PRIORIDAD = 1e-3; // para que ninguna transición quede con prioridad 0
+
+    private final int capacidad;
+    private final double alfa;
+    private final double betaInicial;
+    private final int pasosAnnealing;
+    private final SumTree arbol;
+
+    // Transiciones (s, a, r, s', terminal) en arrays primitivos
+    final int[] x;
+    final int[] y;
+    final int[] accion;
+    final double[] recompensa;
+    final int[] siguienteX;
+    final int[] siguienteY;
+    final boolean[] terminal;
+
+    private int siguiente = 0;
+    private int tamano = 0;
+    private double prioridadMaxima = 1.0;
+    private long muestreos = 0;
+
+    public MemoriaPriorizada(int capacidad, double alfa, double betaInicial, int pasosAnnealing) {
+        this.capacidad = capacidad;
+        this.alfa = alfa;
+        this.betaInicial = betaInicial;
+        this.pasosAnnealing = Math.max(1, pasosAnnealing);
+        this.arbol = new SumTree(capacidad);
+        this.x = new int[capacidad];
+        this.y = new int[capacidad];
+        this.accion = new int[capacidad];
+        this.recompensa = new double[capacidad];
+        this.siguienteX = new int[capacidad];
+        this.siguienteY = new int[capacidad];
+        this.terminal = new boolean[capacidad];
+    }
+
+    /**
+     * Guarda la transición con la prioridad máxima vista, para que se muestree al menos una vez
+     */
+    public void agregar(int x, int y, int accion, double recompensa, int siguienteX, int siguienteY, boolean terminal) {
+        int i = siguiente;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.accion[i] = accion;
+        this.recompensa[i] = recompensa;
+        this.siguienteX[i] = siguienteX;
+        this.siguienteY[i] = siguienteY;
+        this.terminal[i] = terminal;
+        arbol.actualizar(i, Math.pow(prioridadMaxima, alfa));
+
+        siguiente = (siguiente + 1) % capacidad;
+        tamano = Math.min(tamano + 1, capacidad);
+    }
+
+    /**
+     * Muestreo estratificado: el total se divide en "lote" segmentos y se toma un índice de cada uno.
+     * Rellena "indices" y "pesos" (pesos de importancia normalizados a máximo 1).
+     */
+    public void muestrear(int lote, int[] indices, double[] pesos, Random random) {
+        double total = arbol.total();
+        double segmento = total / lote;
+        double beta = Math.min(1.0, betaInicial + (1.0 - betaInicial) * muestreos / pasosAnnealing);
+        muestreos++;
+
+        double pesoMaximo = 0;
+        for (int k = 0; k < lote; k++) {
+            double valor = (k + random.nextDouble()) * segmento;
+            int i = Math.min(arbol.buscar(Math.min(valor, Math.nextDown(total))), tamano - 1);
+            indices[k] = i;
+            double probabilidad = arbol.prioridad(i) / total;
+            pesos[k] = Math.pow(tamano * probabilidad, -beta);
+            pesoMaximo = Math.max(pesoMaximo, pesos[k]);
+        }
+        for (int k = 0; k < lote; k++) {
+            pesos[k] /= pesoMaximo;
+        }
+    }
+
+    /**
+     * Nueva prioridad = |error TD| + epsilon
+     */
+    public void actualizarPrioridades(int[] indices, double[] erroresTD, int lote) {
+        for (int k = 0; k < lote; k++) {
+            double prioridad = Math.abs(erroresTD[k]) + EPSILON_PRIORIDAD;
+            prioridadMaxima = Math.max(prioridadMaxima, prioridad);
+            arbol.actualizar(indices[k], Math.pow(prioridad, alfa));
+        }
+    }
+
+    public int getTamano() {
+        return tamano;
+    }
+}
@@ -0,0 +1,181 @@
+package org.example;
+
+import org.deeplearning4j.nn.api.Model;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.optimize.api.BaseTrainingListener;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.ops.transforms.Transforms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Poda por magnitud de las matrices de pesos de una red densa: en cada capa pone a cero los
+ * pesos de menor valor absoluto hasta la esparsidad pedida y guarda la máscara.
+ *
+ * La máscara se vuelve a aplicar después de cada iteración de entrenamiento (es un listener de
+ * la red), así que se puede afinar entre niveles de poda sin que los pesos podados reaparezcan.
+ * Los sesgos no se podan. El resultado se exporta con RedDispersa para la inferencia.
+ */
+public class PodaMagnitud extends BaseTrainingListener {
+
+    private static final double[] NIVELES = {0.5, 0.7, 0.8, 0.9, 0.95};
+    private static final int CONSULTAS = 5000;
+    private static final String WS = "WS_PODA";
+
+    private final MultiLayerNetwork red;
+    private final INDArray[] mascaras;
+
+    public PodaMagnitud(MultiLayerNetwork red) {
+        this.red = red;
+        this.mascaras = new INDArray[red.getnLayers()];
+        red.addListeners(this);
+    }
+
+    /**
+     * Poda cada capa hasta "esparsidad" (fracción de pesos a cero). Los ya podados cuentan.
+     */
+    public void podar(double esparsidad) {
+        for (int l = 0; l < mascaras.length; l++) {
+            INDArray w = red.getLayer(l).getParam("W");
+            double[] magnitudes = Transforms.abs(w, true).data().asDouble();
+            Arrays.sort(magnitudes);
+            int corte = (int) Math.floor(esparsidad * magnitudes.length);
+            if (corte == 0) continue;
+            double umbral = magnitudes[corte - 1];
+            // Se conservan los estrictamente mayores que el umbral
+            mascaras[l] = Transforms.abs(w, true).gt(umbral).castTo(w.dataType());
+            w.muli(mascaras[l]);
+        }
+    }
+
+    public void aplicarMascaras() {
+        for (int l = 0; l < mascaras.length; l++) {
+            if (mascaras[l] != null) red.getLayer(l).getParam("W").muli(mascaras[l]);
+        }
+    }
+
+    @Override
+    public void iterationDone(Model model, int iteration, int epoch) {
+        aplicarMascaras();
+    }
+
+    /**
+     * Fracción real de pesos a cero (sin sesgos)
+     */
+    public double esparsidad() {
+        long ceros = 0, total = 0;
+        for (int l = 0; l < mascaras.length; l++) {
+            INDArray w = red.getLayer(l).getParam("W");
+            total += w.length();
+            ceros += w.length() - w.neq(0).castTo(w.dataType()).sumNumber().longValue();
+        }
+        return ceros / (double) total;
+    }
+
+    /**
+     * Una de las redes a podar y cómo entrenarla una época
+     */
+    private static final class Caso {
+        final String nombre;
+        final MultiLayerNetwork red;
+        final Runnable epoca;
+
+        Caso(String nombre, MultiLayerNetwork red, Runnable epoca) {
+            this.nombre = nombre;
+            this.red = red;
+            this.epoca = epoca;
+        }
+    }
+
+    private static void medir(Caso caso, String nivel, double[][] entradas, int[] esperadas) {
+        int n = entradas.length;
+
+        // Densa: precisión por lotes y latencia de una consulta con workspace
+        INDArray predicciones = Nd4j.argMax(caso.red.output(Nd4j.create(entradas)), 1);
+        int aciertosDensa = 0;
+        for (int i = 0; i < n; i++) if (predicciones.getInt(i) == esperadas[i]) aciertosDensa++;
+
+        INDArray fila = Nd4j.create(caso.red.getLayerWiseConfigurations().getDataType(), 1, entradas[0].length);
+        for (int i = 0; i < 500; i++) {
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+                EspacioTrabajo.argMax(caso.red.output(fila, false, ws));
+            }
+        }
+        long inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) {
+            double[] x = entradas[i % n];
+            for (int j = 0; j < x.length; j++) fila.putScalar(0, j, x[j]);
+            try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+                EspacioTrabajo.argMax(caso.red.output(fila, false, ws));
+            }
+        }
+        double usDensa = (System.nanoTime() - inicio) / 1e3 / CONSULTAS;
+
+        // CSR
+        RedDispersa dispersa = new RedDispersa(caso.red);
+        int aciertosDispersa = 0;
+        for (int i = 0; i < n; i++) if (dispersa.predecir(entradas[i]) == esperadas[i]) aciertosDispersa++;
+        for (int i = 0; i < 500; i++) dispersa.predecir(entradas[i % n]);
+        inicio = System.nanoTime();
+        for (int i = 0; i < CONSULTAS; i++) dispersa.predecir(entradas[i % n]);
+        double usDispersa = (System.nanoTime() - inicio) / 1e3 / CONSULTAS;
+
+        long bytesDensa = caso.red.numParams() * caso.red.params().dataType().width();
+        System.out.println(String.format("  %-6s | densa %6.1f µs %7.1f KB %5.1f%% | CSR %6.1f µs %7.1f KB %5.1f%% (%d pesos)",
+                nivel, usDensa, bytesDensa / 1024.0, aciertosDensa * 100.0 / n,
+                usDispersa, dispersa.bytes() / 1024.0, aciertosDispersa * 100.0 / n, dispersa.pesosNoNulos()));
+    }
+
+    private static void ejecutar(Caso caso, int epocasBase, int epocasAjuste, double[][] entradas, int[] esperadas) {
+        System.out.println("\n🌿 " + caso.nombre + " (" + caso.red.numParams() + " parámetros)");
+        for (int ep = 0; ep < epocasBase; ep++) caso.epoca.run();
+        medir(caso, "0%", entradas, esperadas);
+
+        PodaMagnitud poda = new PodaMagnitud(caso.red);
+        for (double nivel : NIVELES) {
+            poda.podar(nivel);
+            for (int ep = 0; ep < epocasAjuste; ep++) caso.epoca.run();
+            medir(caso, String.format("%.0f%%", poda.esparsidad() * 100), entradas, esperadas);
+        }
+    }
+
+    public static void main(String[] args) {
+        int epocasBase = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int epocasAjuste = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  ✂️ PODA POR MAGNITUD + INFERENCIA CSR  ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("⚙️ " + epocasBase + " épocas de entrenamiento, " + epocasAjuste +
+                " de ajuste fino entre niveles (0 = sin ajuste)");
+
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        List<String> respuestas = new ArrayList<>(ChatRLAgentV2.getRespuestasUnicas());
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+        int[] esperadas = new int[pares.size()];
+        for (int i = 0; i < esperadas.length; i++) esperadas[i] = respuestas.indexOf(pares.get(i).getValue());
+
+        // ChatRLAgentV2: 26 → 256 → 128 → 64 → N, presencia de letras
+        ChatRLAgentV2 v2 = new ChatRLAgentV2(42L);
+        v2.inicializarRed();
+        double[][] entradasV2 = new double[pares.size()][];
+        for (int i = 0; i < entradasV2.length; i++) entradasV2[i] = ChatRLAgentV2.preguntaAVector(pares.get(i).getKey());
+        ejecutar(new Caso("ChatRLAgentV2", v2.getModel(), v2::entrenarEpoca),
+                epocasBase, epocasAjuste, entradasV2, esperadas);
+
+        // ChatRLAgentOptimo: 26 → 192 → 96 → N, frecuencia de letras
+        ChatRLAgentOptimo optimo = new ChatRLAgentOptimo(respuestas, Precision.FP32);
+        double[][] entradasOptimo = new double[pares.size()][];
+        for (int i = 0; i < entradasOptimo.length; i++) entradasOptimo[i] = optimo.preguntaAVector(pares.get(i).getKey());
+        Runnable epocaOptimo = () -> {
+            for (int i = 0; i < pares.size(); i++) optimo.learn(pares.get(i).getKey(), esperadas[i]);
+        };
+        ejecutar(new Caso("ChatRLAgentOptimo", optimo.getModel(), epocaOptimo),
+                epocasBase, epocasAjuste, entradasOptimo, esperadas);
+    }
+}
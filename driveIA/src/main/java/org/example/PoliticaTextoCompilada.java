@@ -0,0 +1,217 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Política de TextRLAgent "compilada" a una tabla 26×26.
+ *
+ * Como el agente solo ve la última letra, la red se evalúa una única vez para
+ * los 26 estados y la generación (voraz, muestreada o beam search) se hace
+ * leyendo arrays primitivos, sin pasar por ND4J.
+ */
+public class PoliticaTextoCompilada {
+
+    public static final int LETRAS = 26;
+
+    private final float[] q;            // q[estado * 26 + accion]
+    private final int[] voraz;          // mejor acción por estado
+    private final double temperatura;
+    private final float[] acumulada;    // probabilidades acumuladas de softmax(q / T) por estado
+    private final float[] logProb;      // log softmax(q / T), para beam search
+
+    public PoliticaTextoCompilada(double[][] tablaQ, double temperatura) {
+        if (tablaQ.length != LETRAS || tablaQ[0].length != LETRAS) {
+            throw new IllegalArgumentException("Se esperaba una tabla 26x26");
+        }
+        if (temperatura <= 0) {
+            throw new IllegalArgumentException("La temperatura debe ser > 0");
+        }
+        this.temperatura = temperatura;
+        this.q = new float[LETRAS * LETRAS];
+        this.voraz = new int[LETRAS];
+        this.acumulada = new float[LETRAS * LETRAS];
+        this.logProb = new float[LETRAS * LETRAS];
+
+        for (int s = 0; s < LETRAS; s++) {
+            int mejor = 0;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int a = 0; a < LETRAS; a++) {
+                q[s * LETRAS + a] = (float) tablaQ[s][a];
+                if (tablaQ[s][a] > max) {
+                    max = tablaQ[s][a];
+                    mejor = a;
+                }
+            }
+            voraz[s] = mejor;
+
+            // Softmax estable: se resta el máximo antes de exponenciar
+            double suma = 0;
+            for (int a = 0; a < LETRAS; a++) {
+                suma += Math.exp((tablaQ[s][a] - max) / temperatura);
+            }
+            double logSuma = Math.log(suma);
+            double acumulado = 0;
+            for (int a = 0; a < LETRAS; a++) {
+                double lp = (tablaQ[s][a] - max) / temperatura - logSuma;
+                logProb[s * LETRAS + a] = (float) lp;
+                acumulado += Math.exp(lp);
+                acumulada[s * LETRAS + a] = (float) acumulado;
+            }
+            acumulada[s * LETRAS + LETRAS - 1] = 1.0f;
+        }
+    }
+
+    public float q(int estado, int accion) {
+        return q[estado * LETRAS + accion];
+    }
+
+    public int siguienteVoraz(int estado) {
+        return voraz[estado];
+    }
+
+    public int siguienteMuestreado(int estado, SplittableRandom random) {
+        float u = (float) random.nextDouble();
+        int base = estado * LETRAS;
+        for (int a = 0; a < LETRAS - 1; a++) {
+            if (u < acumulada[base + a]) return a;
+        }
+        return LETRAS - 1;
+    }
+
+    public double getTemperatura() {
+        return temperatura;
+    }
+
+    /**
+     * Genera iniciales.length secuencias voraces en paralelo.
+     * salida[i * (longitud + 1) ...] contiene la letra inicial seguida de "longitud" letras (0-25).
+     */
+    public void generarVoraz(int[] iniciales, int longitud, byte[] salida) {
+        int ancho = longitud + 1;
+        comprobarSalida(iniciales, ancho, salida);
+        IntStream.range(0, iniciales.length).parallel().forEach(i -> {
+            int pos = i * ancho;
+            int letra = iniciales[i];
+            salida[pos] = (byte) letra;
+            for (int k = 1; k < ancho; k++) {
+                letra = voraz[letra];
+                salida[pos + k] = (byte) letra;
+            }
+        });
+    }
+
+    /**
+     * Igual que generarVoraz pero muestreando de softmax(q / T); reproducible para una semilla dada
+     */
+    public void generarMuestreado(int[] iniciales, int longitud, long semilla, byte[] salida) {
+        int ancho = longitud + 1;
+        comprobarSalida(iniciales, ancho, salida);
+        int bloque = 1024;
+        int bloques = (iniciales.length + bloque - 1) / bloque;
+        IntStream.range(0, bloques).parallel().forEach(b -> {
+            SplittableRandom random = new SplittableRandom(semilla + b);
+            int fin = Math.min(iniciales.length, (b + 1) * bloque);
+            for (int i = b * bloque; i < fin; i++) {
+                int pos = i * ancho;
+                int letra = iniciales[i];
+                salida[pos] = (byte) letra;
+                for (int k = 1; k < ancho; k++) {
+                    letra = siguienteMuestreado(letra, random);
+                    salida[pos + k] = (byte) letra;
+                }
+            }
+        });
+    }
+
+    /**
+     * Beam search: las "anchoHaz" secuencias de mayor log-probabilidad que empiezan en "inicial"
+     */
+    public int[][] beamSearch(int inicial, int longitud, int anchoHaz) {
+        validarHaz(longitud, anchoHaz);
+        int[][] haz = {{inicial}};
+        double[] puntuaciones = {0.0};
+
+        for (int paso = 0; paso < longitud; paso++) {
+            int candidatos = haz.length * LETRAS;
+            double[] puntuacionCandidato = new double[candidatos];
+            for (int h = 0; h < haz.length; h++) {
+                int ultima = haz[h][haz[h].length - 1];
+                for (int a = 0; a < LETRAS; a++) {
+                    puntuacionCandidato[h * LETRAS + a] = puntuaciones[h] + logProb[ultima * LETRAS + a];
+                }
+            }
+
+            int ancho = Math.min(anchoHaz, candidatos);
+            int[] mejores = mejoresIndices(puntuacionCandidato, ancho);
+            int[][] nuevoHaz = new int[ancho][];
+            double[] nuevasPuntuaciones = new double[ancho];
+            for (int j = 0; j < ancho; j++) {
+                int c = mejores[j];
+                int[] previa = haz[c / LETRAS];
+                nuevoHaz[j] = Arrays.copyOf(previa, previa.length + 1);
+                nuevoHaz[j][previa.length] = c % LETRAS;
+                nuevasPuntuaciones[j] = puntuacionCandidato[c];
+            }
+            haz = nuevoHaz;
+            puntuaciones = nuevasPuntuaciones;
+        }
+        return haz;
+    }
+
+    /**
+     * Beam search para muchas letras iniciales en paralelo; devuelve la mejor secuencia de cada una
+     */
+    public int[][] beamSearchLote(int[] iniciales, int longitud, int anchoHaz) {
+        // Antes de repartir: así el error sale aquí y no envuelto por el stream paralelo
+        validarHaz(longitud, anchoHaz);
+        int[][] resultado = new int[iniciales.length][];
+        IntStream.range(0, iniciales.length).parallel()
+                .forEach(i -> resultado[i] = beamSearch(iniciales[i], longitud, anchoHaz)[0]);
+        return resultado;
+    }
+
+    private static void validarHaz(int longitud, int anchoHaz) {
+        if (longitud < 1 || anchoHaz < 1) {
+            throw new IllegalArgumentException("longitud y anchoHaz deben ser >= 1: " + longitud + ", " + anchoHaz);
+        }
+    }
+
+    // Selección parcial de los k mayores (k es pequeño: el ancho del haz)
+    private static int[] mejoresIndices(double[] valores, int k) {
+        int[] mejores = new int[k];
+        boolean[] usado = new boolean[valores.length];
+        for (int j = 0; j < k; j++) {
+            int mejor = -1;
+            for (int i = 0; i < valores.length; i++) {
+                if (!usado[i] && (mejor < 0 || valores[i] > valores[mejor])) mejor = i;
+            }
+            usado[mejor] = true;
+            mejores[j] = mejor;
+        }
+        return mejores;
+    }
+
+    private static void comprobarSalida(int[] iniciales, int ancho, byte[] salida) {
+        if ((long) iniciales.length * ancho > salida.length) {
+            throw new IllegalArgumentException("El buffer de salida es demasiado pequeño");
+        }
+    }
+
+    public static String aTexto(byte[] letras, int desde, int longitud) {
+        char[] texto = new char[longitud];
+        for (int i = 0; i < longitud; i++) {
+            texto[i] = (char) ('a' + letras[desde + i]);
+        }
+        return new String(texto);
+    }
+
+    public static String aTexto(int[] letras) {
+        char[] texto = new char[letras.length];
+        for (int i = 0; i < letras.length; i++) {
+            texto[i] = (char) ('a' + letras[i]);
+        }
+        return new String(texto);
+    }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.buffer.DataType;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+/**
+ * Precisión numérica de un agente: parámetros, activaciones y buffers de entrada/objetivo.
+ *
+ * FP32 es lo que DL4J usa por defecto (y lo que usaban los agentes hasta ahora);
+ * BF16 depende del backend de CPU, así que conviene comprobar soportada() antes de usarla.
+ */
+public enum Precision {
+    FP64(DataType.DOUBLE),
+    FP32(DataType.FLOAT),
+    BF16(DataType.BFLOAT16);
+
+    final DataType tipo;
+
+    Precision(DataType tipo) {
+        this.tipo = tipo;
+    }
+
+    public DataType getTipo() {
+        return tipo;
+    }
+
+    static Precision de(DataType tipo) {
+        for (Precision p : values()) {
+            if (p.tipo == tipo) return p;
+        }
+        throw new IllegalArgumentException("Precisión no soportada: " + tipo);
+    }
+
+    /**
+     * Prueba una red mínima (output + fit) en este tipo con el backend actual
+     */
+    public boolean soportada() {
+        try {
+            MultiLayerNetwork red = new MultiLayerNetwork(new NeuralNetConfiguration.Builder()
+                    .dataType(tipo)
+                    .updater(new Adam(0.01))
+                    .list()
+                    .layer(new DenseLayer.Builder().nIn(2).nOut(4).activation(Activation.RELU).build())
+                    .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MSE)
+                            .activation(Activation.IDENTITY).nOut(2).build())
+                    .build());
+            red.init();
+            red.fit(Nd4j.ones(tipo, 1, 2), Nd4j.zeros(tipo, 1, 2));
+            double salida = red.output(Nd4j.ones(tipo, 1, 2)).getDouble(0);
+            return !Double.isNaN(salida);
+        } catch (RuntimeException | UnsatisfiedLinkError e) {
+            return false;
+        }
+    }
+}
@@ -6,8 +6,10 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.learning.config.Adam;
 import org.nd4j.linalg.lossfunctions.LossFunctions;
 
@@ -34,9 +36,46 @@ public class RLAgent {
 
     private MultiLayerNetwork model;
 
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo)
+    private static final String WS = "WS_RL_AGENT";
+    private final Precision precision;
+    private final INDArray entrada;
+    private final INDArray siguienteEntrada;
+    private final INDArray objetivo;
+    private INDArray entradasLote;
+    private INDArray siguientesLote;
+    private INDArray objetivosLote;
+
+    // Replay priorizado (opcional): si memoria es null el agente aprende online con learn()
+    private MemoriaPriorizada memoria;
+    private int tamanoLote;
+    private int[] indicesLote;
+    private double[] pesosLote;
+    private double[] erroresTD;
+    private long actualizaciones = 0;
+
+    // Lotes que llegan de fuera (aprenderLote): buffers propios de maxLote filas, reservados una vez
+    private INDArray entradasExternas;
+    private INDArray siguientesExternas;
+    private INDArray objetivosExternos;
+
     public RLAgent() {
+        this(new Random().nextLong());
+    }
+
+    // Semilla fija: misma inicialización de pesos y misma exploración en cada ejecución
+    public RLAgent(long semilla) {
+        this(semilla, Precision.FP32);
+    }
+
+    public RLAgent(long semilla, Precision precision) {
+
+        random = new Random(semilla);
+        this.precision = precision;
 
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .seed(semilla)
+                .dataType(precision.tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(16)
@@ -50,6 +89,10 @@ public class RLAgent {
 
         model = new MultiLayerNetwork(config);
         model.init();
+
+        entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        siguienteEntrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        objetivo = Nd4j.create(precision.tipo, 1, ACTIONS);
     }
 
     // Decide acción usando epsilon-greedy
@@ -58,24 +101,150 @@ public class RLAgent {
             return random.nextInt(ACTIONS);
         }
 
-        INDArray input = Nd4j.create(new double[][]{{x, y}}); // Corregido: crear como matriz
-        INDArray output = model.output(input);
-        return Nd4j.argMax(output, 1).getInt(0);
+        entrada.putScalar(0, x);
+        entrada.putScalar(1, y);
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            return EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
     }
 
     public void learn(int x, int y, int action, double reward, int nextX, int nextY) {
 
-        INDArray input = Nd4j.create(new double[][]{{x, y}}); // Corregido: crear como matriz
-        INDArray target = model.output(input).dup();
+        entrada.putScalar(0, x);
+        entrada.putScalar(1, y);
+        siguienteEntrada.putScalar(0, nextX);
+        siguienteEntrada.putScalar(1, nextY);
 
-        INDArray nextInput = Nd4j.create(new double[][]{{nextX, nextY}}); // Corregido: crear como matriz
-        INDArray futureQ = model.output(nextInput);
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            objetivo.assign(model.output(entrada, false, ws));
+            double futureQ = EspacioTrabajo.max(model.output(siguienteEntrada, false, ws));
+            objetivo.putScalar(action, reward + GAMMA * futureQ);
+        }
 
-        double qUpdated = reward + GAMMA * futureQ.maxNumber().doubleValue();
-        target.putScalar(action, qUpdated);
+        model.fit(entrada, objetivo);
+        epsilon *= EPSILON_DECAY;
+        actualizaciones++;
+    }
+
+    // Activa el modo replay priorizado (alfa = 0.6, beta 0.4 → 1)
+    public void activarReplayPriorizado(int capacidad, int tamanoLote, int pasosAnnealing) {
+        this.memoria = new MemoriaPriorizada(capacidad, 0.6, 0.4, pasosAnnealing);
+        this.tamanoLote = tamanoLote;
+        this.indicesLote = new int[tamanoLote];
+        this.pesosLote = new double[tamanoLote];
+        this.erroresTD = new double[tamanoLote];
+        this.entradasLote = Nd4j.create(precision.tipo, tamanoLote, STATE_SIZE);
+        this.siguientesLote = Nd4j.create(precision.tipo, tamanoLote, STATE_SIZE);
+        this.objetivosLote = Nd4j.create(precision.tipo, tamanoLote, ACTIONS);
+    }
+
+    // Guarda la transición y, si hay suficientes, hace una actualización con un lote priorizado
+    public void remember(int x, int y, int action, double reward, int nextX, int nextY, boolean terminal) {
+        memoria.agregar(x, y, action, reward, nextX, nextY, terminal);
+        if (memoria.getTamano() < tamanoLote) {
+            return;
+        }
 
-        model.fit(input, target);
+        memoria.muestrear(tamanoLote, indicesLote, pesosLote, random);
+
+        for (int k = 0; k < tamanoLote; k++) {
+            int i = indicesLote[k];
+            entradasLote.putScalar(k, 0, memoria.x[i]);
+            entradasLote.putScalar(k, 1, memoria.y[i]);
+            siguientesLote.putScalar(k, 0, memoria.siguienteX[i]);
+            siguientesLote.putScalar(k, 1, memoria.siguienteY[i]);
+        }
+
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            objetivosLote.assign(model.output(entradasLote, false, ws));
+            INDArray futureQ = model.output(siguientesLote, false, ws);
+
+            for (int k = 0; k < tamanoLote; k++) {
+                int i = indicesLote[k];
+                int a = memoria.accion[i];
+                double qUpdated = memoria.recompensa[i];
+                if (!memoria.terminal[i]) {
+                    qUpdated += GAMMA * futureQ.getDouble(k, EspacioTrabajo.argMaxFila(futureQ, k));
+                }
+                double qActual = objetivosLote.getDouble(k, a);
+                erroresTD[k] = qUpdated - qActual;
+                // Con MSE, mover el objetivo solo w·δ equivale a ponderar el gradiente por el peso de importancia
+                objetivosLote.putScalar(k, a, qActual + pesosLote[k] * erroresTD[k]);
+            }
+        }
+
+        model.fit(entradasLote, objetivosLote);
+        memoria.actualizarPrioridades(indicesLote, erroresTD, tamanoLote);
         epsilon *= EPSILON_DECAY;
+        actualizaciones++;
+    }
+
+    /**
+     * Reserva los buffers de aprenderLote para lotes de hasta maxLote transiciones
+     */
+    public void reservarLotesExternos(int maxLote) {
+        if (maxLote < 1) {
+            throw new IllegalArgumentException("maxLote debe ser >= 1: " + maxLote);
+        }
+        entradasExternas = Nd4j.create(precision.tipo, maxLote, STATE_SIZE);
+        siguientesExternas = Nd4j.create(precision.tipo, maxLote, STATE_SIZE);
+        objetivosExternos = Nd4j.create(precision.tipo, maxLote, ACTIONS);
+    }
+
+    /**
+     * Una actualización de Q-learning con un lote de n transiciones ya recogidas (p. ej. por los
+     * actores de EntrenamientoMultiActor). No toca epsilon: la exploración la deciden los actores.
+     * Usa sus propios buffers (ver reservarLotesExternos), no los del replay priorizado.
+     */
+    public void aprenderLote(int[] x, int[] y, int[] accion, double[] recompensa,
+                             int[] siguienteX, int[] siguienteY, boolean[] terminal, int n) {
+        if (entradasExternas == null) {
+            throw new IllegalStateException("Llama a reservarLotesExternos antes de aprenderLote");
+        }
+        int maxLote = entradasExternas.rows();
+        if (n < 1 || n > maxLote) {
+            throw new IllegalArgumentException("Lote de " + n + " transiciones, se admiten de 1 a " + maxLote);
+        }
+        // Con el lote lleno se usan los buffers tal cual; si no, una vista de sus n primeras filas
+        INDArray entradas = n == maxLote ? entradasExternas
+                : entradasExternas.get(NDArrayIndex.interval(0, n), NDArrayIndex.all());
+        INDArray siguientes = n == maxLote ? siguientesExternas
+                : siguientesExternas.get(NDArrayIndex.interval(0, n), NDArrayIndex.all());
+        INDArray objetivos = n == maxLote ? objetivosExternos
+                : objetivosExternos.get(NDArrayIndex.interval(0, n), NDArrayIndex.all());
+        for (int k = 0; k < n; k++) {
+            entradas.putScalar(k, 0, x[k]);
+            entradas.putScalar(k, 1, y[k]);
+            siguientes.putScalar(k, 0, siguienteX[k]);
+            siguientes.putScalar(k, 1, siguienteY[k]);
+        }
+
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            objetivos.assign(model.output(entradas, false, ws));
+            INDArray futureQ = model.output(siguientes, false, ws);
+            for (int k = 0; k < n; k++) {
+                double qUpdated = recompensa[k];
+                if (!terminal[k]) {
+                    qUpdated += GAMMA * futureQ.getDouble(k, EspacioTrabajo.argMaxFila(futureQ, k));
+                }
+                objetivos.putScalar(k, accion[k], qUpdated);
+            }
+        }
+
+        model.fit(entradas, objetivos);
+        actualizaciones++;
+    }
+
+    MultiLayerNetwork getModel() {
+        return model;
+    }
+
+    public long getActualizaciones() {
+        return actualizaciones;
+    }
+
+    public void disableExploration() {
+        epsilon = 0.0;
     }
 }
 
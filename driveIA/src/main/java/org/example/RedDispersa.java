@@ -0,0 +1,123 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.layers.BaseLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.activations.IActivation;
+import org.nd4j.linalg.activations.impl.ActivationIdentity;
+import org.nd4j.linalg.activations.impl.ActivationReLU;
+import org.nd4j.linalg.activations.impl.ActivationSoftmax;
+
+/**
+ * Copia de solo inferencia de una red densa (p. ej. podada con PodaMagnitud) con cada matriz
+ * de pesos en formato CSR: una fila por neurona de entrada con sus pesos distintos de cero.
+ *
+ * La pasada hacia delante recorre solo las entradas distintas de cero y, dentro de cada una,
+ * solo sus pesos no nulos, así que el coste es proporcional a los pesos que sobreviven a la
+ * poda (y a las letras presentes en la pregunta). Las capas ocultas tienen que ser ReLU y la
+ * última identidad o softmax (se deja en crudo porque softmax no cambia el argMax); cualquier
+ * otra activación se rechaza al construir en lugar de tratarse en silencio como identidad.
+ */
+public class RedDispersa {
+
+    static final class Capa {
+        final int entradas, salidas;
+        final int[] inicioFila;   // entradas + 1 posiciones
+        final int[] columnas;
+        final float[] valores;
+        final float[] sesgo;
+        final boolean relu;
+
+        Capa(double[][] w, double[] b, boolean relu) {
+            this.entradas = w.length;
+            this.salidas = b.length;
+            this.relu = relu;
+            this.sesgo = new float[salidas];
+            for (int j = 0; j < salidas; j++) sesgo[j] = (float) b[j];
+
+            int noNulos = 0;
+            for (double[] fila : w) for (double v : fila) if (v != 0) noNulos++;
+            inicioFila = new int[entradas + 1];
+            columnas = new int[noNulos];
+            valores = new float[noNulos];
+            int k = 0;
+            for (int i = 0; i < entradas; i++) {
+                inicioFila[i] = k;
+                for (int j = 0; j < salidas; j++) {
+                    if (w[i][j] != 0) {
+                        columnas[k] = j;
+                        valores[k++] = (float) w[i][j];
+                    }
+                }
+            }
+            inicioFila[entradas] = k;
+        }
+
+        void adelante(float[] x, float[] y) {
+            System.arraycopy(sesgo, 0, y, 0, salidas);
+            for (int i = 0; i < entradas; i++) {
+                float xi = x[i];
+                if (xi == 0) continue;
+                for (int k = inicioFila[i], fin = inicioFila[i + 1]; k < fin; k++) {
+                    y[columnas[k]] += xi * valores[k];
+                }
+            }
+            if (relu) {
+                for (int j = 0; j < salidas; j++) if (y[j] < 0) y[j] = 0;
+            }
+        }
+
+        long bytes() {
+            return 4L * (inicioFila.length + columnas.length + valores.length + sesgo.length);
+        }
+    }
+
+    private final Capa[] capas;
+    private final float[][] activaciones;  // buffer por capa, reutilizado en cada consulta
+
+    public RedDispersa(MultiLayerNetwork red) {
+        int n = red.getnLayers();
+        capas = new Capa[n];
+        activaciones = new float[n + 1][];
+        for (int l = 0; l < n; l++) {
+            IActivation activacion = ((BaseLayer) red.getLayer(l).conf().getLayer()).getActivationFn();
+            boolean relu = l < n - 1;
+            boolean soportada = relu ? activacion instanceof ActivationReLU
+                    : activacion instanceof ActivationIdentity || activacion instanceof ActivationSoftmax;
+            if (!soportada) {
+                throw new IllegalArgumentException("Activación no soportada en la capa " + l + ": " + activacion +
+                        (relu ? " (las ocultas deben ser ReLU)" : " (la última debe ser identidad o softmax)"));
+            }
+            capas[l] = new Capa(red.getLayer(l).getParam("W").toDoubleMatrix(),
+                    red.getLayer(l).getParam("b").toDoubleVector(), relu);
+            activaciones[l + 1] = new float[capas[l].salidas];
+        }
+        activaciones[0] = new float[capas[0].entradas];
+    }
+
+    /**
+     * Índice de la salida mayor para una entrada. No es seguro entre hilos (buffers compartidos).
+     */
+    public int predecir(double[] entrada) {
+        float[] x = activaciones[0];
+        for (int i = 0; i < x.length; i++) x[i] = (float) entrada[i];
+        for (int l = 0; l < capas.length; l++) {
+            capas[l].adelante(activaciones[l], activaciones[l + 1]);
+        }
+        float[] salida = activaciones[capas.length];
+        int mejor = 0;
+        for (int j = 1; j < salida.length; j++) if (salida[j] > salida[mejor]) mejor = j;
+        return mejor;
+    }
+
+    public long bytes() {
+        long total = 0;
+        for (Capa capa : capas) total += capa.bytes();
+        return total;
+    }
+
+    public long pesosNoNulos() {
+        long total = 0;
+        for (Capa capa : capas) total += capa.valores.length;
+        return total;
+    }
+}
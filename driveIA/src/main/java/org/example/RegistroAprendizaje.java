@@ -0,0 +1,288 @@
+package org.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de escritura anticipada (WAL) de solo-añadir para lo que el chatbot aprende en caliente.
+ *
+ * Las entradas se escriben en segmentos "wal-<primerLsn>.log"; cada una va enmarcada como
+ * [int longitud][datos][int crc32], así que una escritura cortada a medias al final del
+ * último segmento se detecta y se trunca al abrir. El fsync se agrupa: se fuerza al disco
+ * cada "syncCadaEntradas" entradas o cada "syncCadaMs" milisegundos, lo que ocurra antes
+ * (un hilo daemon sincroniza también cuando no llegan más entradas).
+ */
+public class RegistroAprendizaje implements Closeable {
+
+    public static final byte PAR = 1;            // par pregunta-respuesta aprendido
+    public static final byte ACTUALIZACION = 2;  // evento de actualización de pesos (informativo)
+
+    private static final String PREFIJO = "wal-";
+    private static final String SUFIJO = ".log";
+
+    public static final class Entrada {
+        public final long lsn;
+        public final byte tipo;
+        public final long marcaTiempo;
+        public final String a;
+        public final String b;
+        public final double valor;
+
+        Entrada(long lsn, byte tipo, long marcaTiempo, String a, String b, double valor) {
+            this.lsn = lsn;
+            this.tipo = tipo;
+            this.marcaTiempo = marcaTiempo;
+            this.a = a;
+            this.b = b;
+            this.valor = valor;
+        }
+    }
+
+    private final Path directorio;
+    private final long tamanoSegmento;
+    private final int syncCadaEntradas;
+    private final long syncCadaMs;
+
+    private FileChannel canal;
+    private long ultimoLsn = 0;
+    private int pendientes = 0;
+    private long ultimoSync = System.currentTimeMillis();
+    private final ScheduledExecutorService sincronizador;
+
+    public RegistroAprendizaje(Path directorio, long tamanoSegmento, int syncCadaEntradas, long syncCadaMs) throws IOException {
+        this.directorio = directorio;
+        this.tamanoSegmento = tamanoSegmento;
+        this.syncCadaEntradas = syncCadaEntradas;
+        this.syncCadaMs = syncCadaMs;
+        Files.createDirectories(directorio);
+
+        List<Path> segmentos = segmentos();
+        if (segmentos.isEmpty()) {
+            abrirSegmento(1);
+        } else {
+            Path ultimo = segmentos.get(segmentos.size() - 1);
+            ultimoLsn = primerLsn(ultimo) - 1;
+            long valido = leerSegmento(ultimo, e -> ultimoLsn = e.lsn);
+            canal = FileChannel.open(ultimo, StandardOpenOption.WRITE);
+            if (valido < canal.size()) {
+                System.out.println("⚠️ WAL: cola incompleta en " + ultimo.getFileName() + ", truncando a " + valido + " bytes");
+                canal.truncate(valido);
+                canal.force(true);
+            }
+            canal.position(valido);
+        }
+
+        if (syncCadaMs > 0) {
+            sincronizador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "wal-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            sincronizador.scheduleWithFixedDelay(this::sincronizarPeriodico, syncCadaMs, syncCadaMs, TimeUnit.MILLISECONDS);
+        } else {
+            sincronizador = null;
+        }
+    }
+
+    private synchronized void sincronizarPeriodico() {
+        if (!canal.isOpen()) return;
+        try {
+            sincronizar();  // no hace nada si no hay entradas pendientes
+        } catch (IOException e) {
+            System.err.println("❌ WAL: fallo en el fsync periódico: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Añade una entrada y devuelve su LSN. Solo queda garantizada en disco tras el siguiente sync.
+     */
+    public synchronized long agregar(byte tipo, String a, String b, double valor) throws IOException {
+        if (canal.position() >= tamanoSegmento) {
+            sincronizar();
+            canal.close();
+            abrirSegmento(ultimoLsn + 1);
+        }
+
+        long lsn = ultimoLsn + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream datos = new DataOutputStream(bytes)) {
+            datos.writeLong(lsn);
+            datos.writeByte(tipo);
+            datos.writeLong(System.currentTimeMillis());
+            datos.writeUTF(a == null ? "" : a);
+            datos.writeUTF(b == null ? "" : b);
+            datos.writeDouble(valor);
+        }
+        byte[] carga = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(carga);
+
+        ByteBuffer marco = ByteBuffer.allocate(4 + carga.length + 4);
+        marco.putInt(carga.length).put(carga).putInt((int) crc.getValue()).flip();
+        while (marco.hasRemaining()) {
+            canal.write(marco);
+        }
+        ultimoLsn = lsn;
+
+        pendientes++;
+        if (pendientes >= syncCadaEntradas || System.currentTimeMillis() - ultimoSync >= syncCadaMs) {
+            sincronizar();
+        }
+        return lsn;
+    }
+
+    public synchronized void sincronizar() throws IOException {
+        if (pendientes > 0) {
+            canal.force(false);
+            pendientes = 0;
+        }
+        ultimoSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Recorre en orden las entradas con LSN > desdeLsn (solo lee los segmentos necesarios)
+     */
+    public synchronized int reproducir(long desdeLsn, Consumer<Entrada> consumidor) throws IOException {
+        sincronizar();
+        List<Path> segmentos = segmentos();
+        int reproducidas = 0;
+        for (int i = 0; i < segmentos.size(); i++) {
+            boolean haySiguiente = i + 1 < segmentos.size();
+            if (haySiguiente && primerLsn(segmentos.get(i + 1)) <= desdeLsn + 1) {
+                continue; // todo el segmento es anterior a desdeLsn
+            }
+            int[] contador = {0};
+            leerSegmento(segmentos.get(i), e -> {
+                if (e.lsn > desdeLsn) {
+                    consumidor.accept(e);
+                    contador[0]++;
+                }
+            });
+            reproducidas += contador[0];
+        }
+        return reproducidas;
+    }
+
+    /**
+     * Borra los segmentos cuyas entradas son todas <= hastaLsn (ya cubiertas por un snapshot)
+     */
+    public synchronized int compactar(long hastaLsn) throws IOException {
+        List<Path> segmentos = segmentos();
+        int borrados = 0;
+        // El último segmento es el activo y nunca se borra
+        for (int i = 0; i + 1 < segmentos.size(); i++) {
+            if (primerLsn(segmentos.get(i + 1)) - 1 <= hastaLsn) {
+                Files.delete(segmentos.get(i));
+                borrados++;
+            }
+        }
+        return borrados;
+    }
+
+    public synchronized long getUltimoLsn() {
+        return ultimoLsn;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (sincronizador != null) sincronizador.shutdown();
+        sincronizar();
+        canal.close();
+    }
+
+    private void abrirSegmento(long primerLsn) throws IOException {
+        Path ruta = directorio.resolve(String.format("%s%020d%s", PREFIJO, primerLsn, SUFIJO));
+        canal = FileChannel.open(ruta, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        canal.position(canal.size());
+        // Que la entrada del directorio del segmento nuevo también sobreviva a un corte
+        forzarADisco(directorio);
+    }
+
+    /**
+     * fsync de un archivo o de un directorio (solo sus entradas, no su contenido)
+     */
+    static void forzarADisco(Path ruta) throws IOException {
+        try (FileChannel c = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            c.force(true);
+        }
+    }
+
+    /**
+     * fsync de un directorio con todo su contenido: primero los archivos, después los directorios
+     */
+    static void forzarArbolADisco(Path raiz) throws IOException {
+        List<Path> rutas = new ArrayList<>();
+        try (Stream<Path> recorrido = Files.walk(raiz)) {
+            recorrido.forEach(rutas::add);
+        }
+        Collections.reverse(rutas);
+        for (Path ruta : rutas) forzarADisco(ruta);
+    }
+
+    private List<Path> segmentos() throws IOException {
+        List<Path> resultado = new ArrayList<>();
+        try (DirectoryStream<Path> flujo = Files.newDirectoryStream(directorio, PREFIJO + "*" + SUFIJO)) {
+            for (Path p : flujo) {
+                resultado.add(p);
+            }
+        }
+        Collections.sort(resultado); // el LSN va con ceros a la izquierda: orden alfabético = orden de LSN
+        return resultado;
+    }
+
+    private static long primerLsn(Path segmento) {
+        String nombre = segmento.getFileName().toString();
+        return Long.parseLong(nombre.substring(PREFIJO.length(), nombre.length() - SUFIJO.length()));
+    }
+
+    /**
+     * Lee las entradas válidas de un segmento y devuelve el número de bytes válidos
+     * (lo que sigue a una entrada incompleta o con CRC incorrecto se ignora)
+     */
+    private static long leerSegmento(Path segmento, Consumer<Entrada> consumidor) throws IOException {
+        long valido = 0;
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmento)))) {
+            while (true) {
+                int longitud;
+                try {
+                    longitud = entrada.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (longitud <= 0 || longitud > (1 << 20)) break;
+
+                byte[] carga = new byte[longitud];
+                int crcGuardado;
+                try {
+                    entrada.readFully(carga);
+                    crcGuardado = entrada.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(carga);
+                if ((int) crc.getValue() != crcGuardado) break;
+
+                DataInputStream datos = new DataInputStream(new ByteArrayInputStream(carga));
+                consumidor.accept(new Entrada(datos.readLong(), datos.readByte(), datos.readLong(),
+                        datos.readUTF(), datos.readUTF(), datos.readDouble()));
+                valido += 4 + longitud + 4;
+            }
+        }
+        return valido;
+    }
+}
@@ -0,0 +1,322 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.util.ModelSerializer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servidor de respuestas que cambia de modelo sin parar.
+ *
+ * Vigila un directorio de checkpoints (los "snapshot-*" que escribe ChatRLAgentV2.guardarEstado /
+ * ChatRLAgentPersistente). Cuando aparece uno nuevo lo carga en un hilo de fondo, lo calienta
+ * (ver Calentamiento) y lo publica con un AtomicReference: cada petición toma la
+ * referencia al empezar, así que las que están en curso terminan con el modelo anterior.
+ */
+public class ServidorChatRecargable implements AutoCloseable {
+
+    private static final String PREFIJO_SNAPSHOT = "snapshot-";
+
+    /**
+     * Modelo inmutable listo para servir: réplicas de la red (una por hilo de servicio)
+     * y su propia copia de la tabla de respuestas
+     */
+    static final class ModeloServido {
+        final String version;
+        final List<String> respuestas;
+        private final BlockingQueue<MultiLayerNetwork> replicas;
+
+        ModeloServido(String version, MultiLayerNetwork red, List<String> respuestas, int numReplicas) {
+            this.version = version;
+            this.respuestas = Collections.unmodifiableList(new ArrayList<>(respuestas));
+            this.replicas = new ArrayBlockingQueue<>(numReplicas);
+            replicas.add(red);
+            for (int i = 1; i < numReplicas; i++) {
+                replicas.add(red.clone());
+            }
+        }
+
+        String responder(String pregunta) throws InterruptedException {
+            INDArray entrada = Nd4j.create(new double[][]{ChatRLAgentV2.preguntaAVector(pregunta)});
+            MultiLayerNetwork red = replicas.take();
+            try {
+                return respuestas.get(Nd4j.argMax(red.output(entrada), 1).getInt(0));
+            } finally {
+                replicas.add(red);
+            }
+        }
+
+        // Todas las réplicas pasan por JIT/ND4J antes de recibir tráfico real
+        Calentamiento.Informe calentar() {
+            return new Calentamiento(false, 1).calentar(replicas.toArray(new MultiLayerNetwork[0]));
+        }
+    }
+
+    private final Path directorio;
+    private final int hilosServicio;
+    private final AtomicReference<ModeloServido> actual = new AtomicReference<>();
+    private final ExecutorService cargador = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cargador-modelos");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean activo = new AtomicBoolean(true);
+    private final Thread vigilante;
+    private volatile Runnable alCambiar = () -> {};
+    private final AtomicReference<Runnable> alListo = new AtomicReference<>();
+
+    public ServidorChatRecargable(Path directorio, int hilosServicio) throws IOException {
+        this.directorio = directorio;
+        this.hilosServicio = hilosServicio;
+        Files.createDirectories(directorio);
+
+        // Primero se vigila y después se busca el último: un checkpoint publicado entre medias
+        // lo ve al menos uno de los dos (y si lo ven ambos, cargarYPublicar ignora el repetido)
+        WatchService watch = directorio.getFileSystem().newWatchService();
+        directorio.register(watch, StandardWatchEventKinds.ENTRY_CREATE);
+
+        // El checkpoint más reciente se carga de forma síncrona para poder servir desde el principio
+        try {
+            Path ultimo = ultimoSnapshot();
+            if (ultimo != null) {
+                actual.set(cargar(ultimo));
+            }
+        } catch (IOException | RuntimeException e) {
+            watch.close();
+            throw e;
+        }
+
+        vigilante = new Thread(() -> vigilar(watch), "vigilante-checkpoints");
+        vigilante.setDaemon(true);
+        vigilante.start();
+    }
+
+    public String responder(String pregunta) throws InterruptedException {
+        ModeloServido modelo = actual.get();
+        if (modelo == null) {
+            throw new IllegalStateException("Todavía no hay ningún modelo cargado en " + directorio);
+        }
+        return modelo.responder(pregunta);
+    }
+
+    public String versionActual() {
+        ModeloServido modelo = actual.get();
+        return modelo == null ? "-" : modelo.version;
+    }
+
+    public void setAlCambiar(Runnable alCambiar) {
+        this.alCambiar = alCambiar;
+    }
+
+    /**
+     * Listo = hay un modelo cargado y calentado
+     */
+    public boolean isListo() {
+        return actual.get() != null;
+    }
+
+    /**
+     * Callback para cuando el servidor esté listo; si ya lo está se ejecuta en el acto
+     */
+    public void setAlListo(Runnable callback) {
+        alListo.set(callback);
+        if (isListo()) avisarListo();
+    }
+
+    private void avisarListo() {
+        Runnable callback = alListo.getAndSet(null);
+        if (callback != null) callback.run();
+    }
+
+    private void vigilar(WatchService watch) {
+        try (watch) {
+            while (activo.get()) {
+                WatchKey clave = watch.poll(200, TimeUnit.MILLISECONDS);
+                if (clave == null) continue;
+                for (WatchEvent<?> evento : clave.pollEvents()) {
+                    Object contexto = evento.context();
+                    if (contexto instanceof Path && contexto.toString().startsWith(PREFIJO_SNAPSHOT)) {
+                        Path snapshot = directorio.resolve((Path) contexto);
+                        cargador.submit(() -> cargarYPublicar(snapshot));
+                    }
+                }
+                clave.reset();
+            }
+        } catch (IOException | InterruptedException | ClosedWatchServiceException e) {
+            // Se sale al cerrar el servidor
+        }
+    }
+
+    private void cargarYPublicar(Path snapshot) {
+        try {
+            // Ya cargado (p. ej. el del constructor, que el vigilante también puede haber visto)
+            if (!esMasNuevo(snapshot.getFileName().toString())) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            ModeloServido nuevo = cargar(snapshot);
+            // Solo se avanza: un checkpoint viejo que aparezca tarde no sustituye a uno más nuevo
+            if (!esMasNuevo(nuevo.version)) {
+                return;
+            }
+            actual.set(nuevo);
+            System.out.println("🔄 Modelo " + nuevo.version + " en servicio (carga + calentamiento: " +
+                    String.format("%.0f", (System.nanoTime() - inicio) / 1e6) + " ms)");
+            avisarListo();
+            alCambiar.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ No se pudo cargar " + snapshot.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private boolean esMasNuevo(String version) {
+        ModeloServido servido = actual.get();
+        return servido == null || servido.version.compareTo(version) < 0;
+    }
+
+    private ModeloServido cargar(Path snapshot) throws IOException {
+        JSONObject tablas = new JSONObject(new String(Files.readAllBytes(snapshot.resolve("tablas.json")), StandardCharsets.UTF_8));
+        JSONArray json = tablas.getJSONArray("respuestas");
+        List<String> respuestas = new ArrayList<>();
+        for (int i = 0; i < json.length(); i++) {
+            respuestas.add(json.getString(i));
+        }
+        // Para servir no hace falta el estado del updater
+        MultiLayerNetwork red = ModelSerializer.restoreMultiLayerNetwork(snapshot.resolve("modelo.zip").toFile(), false);
+
+        ModeloServido modelo = new ModeloServido(snapshot.getFileName().toString(), red, respuestas, hilosServicio);
+        System.out.println("🌡️ " + modelo.version + ": " + modelo.calentar());
+        return modelo;
+    }
+
+    private Path ultimoSnapshot() throws IOException {
+        Path ultimo = null;
+        try (DirectoryStream<Path> flujo = Files.newDirectoryStream(directorio, PREFIJO_SNAPSHOT + "*")) {
+            for (Path p : flujo) {
+                if (ultimo == null || p.getFileName().toString().compareTo(ultimo.getFileName().toString()) > 0) {
+                    ultimo = p;
+                }
+            }
+        }
+        return ultimo;
+    }
+
+    @Override
+    public void close() {
+        activo.set(false);
+        cargador.shutdown();
+    }
+
+    /**
+     * Escribe el checkpoint fuera del directorio vigilado; publicarCheckpoint lo mueve dentro
+     * de forma atómica, así que el vigilante nunca ve un snapshot a medio escribir
+     */
+    static Path prepararCheckpoint(ChatRLAgentV2 agente, Path directorio, long version) throws IOException {
+        Path temporal = directorio.resolveSibling(directorio.getFileName() + ".tmp-" + nombreSnapshot(version));
+        agente.guardarEstado(temporal);
+        return temporal;
+    }
+
+    static void publicarCheckpoint(Path temporal, Path directorio, long version) throws IOException {
+        Files.move(temporal, directorio.resolve(nombreSnapshot(version)), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String nombreSnapshot(long version) {
+        return String.format("%s%020d", PREFIJO_SNAPSHOT, version);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path directorio = Paths.get(args.length > 0 ? args[0] : "checkpoints");
+        int hilos = 4;
+        long duracionMs = 6000;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🔥 CAMBIO DE MODELO EN CALIENTE        ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        // Dos versiones del modelo, entrenadas antes de medir: la primera se publica ya y la
+        // segunda a mitad de la carga, así la latencia solo refleja el cambio y no el entrenamiento
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        ChatRLAgentV2 agente = new ChatRLAgentV2(1L);
+        agente.inicializarRed();
+        Files.createDirectories(directorio);
+        long versionBase = System.currentTimeMillis();
+        for (int ep = 0; ep < 20; ep++) agente.entrenarEpoca();
+        publicarCheckpoint(prepararCheckpoint(agente, directorio, versionBase), directorio, versionBase);
+        for (int ep = 0; ep < 5; ep++) agente.entrenarEpoca();
+        Path siguiente = prepararCheckpoint(agente, directorio, versionBase + 1);
+
+        long arranque = System.nanoTime();
+        try (ServidorChatRecargable servidor = new ServidorChatRecargable(directorio, hilos)) {
+            servidor.setAlListo(() -> System.out.println("✅ Servidor listo en " +
+                    String.format("%.0f", (System.nanoTime() - arranque) / 1e6) + " ms"));
+            AtomicLong momentoCambio = new AtomicLong();
+            servidor.setAlCambiar(() -> momentoCambio.set(System.nanoTime()));
+
+            List<String> preguntas = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().keySet());
+            long inicio = System.nanoTime();
+            long fin = inicio + duracionMs * 1_000_000L;
+            long[][] marcas = new long[hilos][2_000_000];
+            long[][] latencias = new long[hilos][2_000_000];
+            int[] cuentas = new int[hilos];
+
+            ExecutorService clientes = Executors.newFixedThreadPool(hilos);
+            for (int h = 0; h < hilos; h++) {
+                final int id = h;
+                clientes.submit(() -> {
+                    Random random = new Random(id);
+                    while (System.nanoTime() < fin && cuentas[id] < marcas[id].length) {
+                        String pregunta = preguntas.get(random.nextInt(preguntas.size()));
+                        long t0 = System.nanoTime();
+                        servidor.responder(pregunta);
+                        long t1 = System.nanoTime();
+                        marcas[id][cuentas[id]] = t0 - inicio;
+                        latencias[id][cuentas[id]] = t1 - t0;
+                        cuentas[id]++;
+                    }
+                    return null;
+                });
+            }
+
+            Thread.sleep(duracionMs / 3);
+            publicarCheckpoint(siguiente, directorio, versionBase + 1);
+
+            clientes.shutdown();
+            clientes.awaitTermination(duracionMs * 2, TimeUnit.MILLISECONDS);
+
+            // p99 por ventanas de 500 ms, marcando la ventana del cambio
+            long ventana = 500_000_000L;
+            int numVentanas = (int) (duracionMs * 1_000_000L / ventana) + 1;
+            List<List<Double>> porVentana = new ArrayList<>();
+            for (int v = 0; v < numVentanas; v++) porVentana.add(new ArrayList<>());
+            for (int h = 0; h < hilos; h++) {
+                for (int i = 0; i < cuentas[h]; i++) {
+                    int v = (int) Math.min(numVentanas - 1, marcas[h][i] / ventana);
+                    porVentana.get(v).add(latencias[h][i] / 1e6);
+                }
+            }
+            int ventanaCambio = momentoCambio.get() == 0 ? -1 : (int) ((momentoCambio.get() - inicio) / ventana);
+
+            System.out.println("\n📊 Latencia por ventana de 500 ms (modelo final: " + servidor.versionActual() + ")");
+            for (int v = 0; v < numVentanas; v++) {
+                double[] valores = porVentana.get(v).stream().mapToDouble(Double::doubleValue).sorted().toArray();
+                if (valores.length == 0) continue;
+                System.out.println(String.format("  t=%4.1fs | peticiones %6d | p50 %6.3f ms | p99 %6.3f ms%s",
+                        v * 0.5, valores.length,
+                        ArnesMultiSemilla.percentil(valores, 50), ArnesMultiSemilla.percentil(valores, 99),
+                        v == ventanaCambio ? "  ← cambio de modelo" : ""));
+            }
+        }
+    }
+}
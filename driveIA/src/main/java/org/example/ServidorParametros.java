@@ -0,0 +1,223 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+
+/**
+ * Servidor de parámetros para el entrenamiento distribuido de ChatRLAgentV2.
+ *
+ * Guarda los pesos maestros como double[] y atiende a cada trabajador (otro
+ * proceso JVM) por un socket TCP propio. Protocolo (DataStream, big-endian):
+ *   PEDIR  → int version, int n, n doubles
+ *   ENVIAR int versionBase, int ejemplos, int n, n doubles (delta) → byte aceptado, int version
+ *   FIN    → (cierra la conexión)
+ *
+ * Puerto 0 = efímero: el puerto real se anuncia por la salida estándar con una línea "PUERTO n".
+ * Si en "segundosEspera" no se han conectado todos los trabajadores, el servidor termina con error.
+ *
+ * Modo síncrono: cada ronda espera el delta de todos los trabajadores activos y aplica su media.
+ * Modo asíncrono: aplica cada delta al llegar (escalado por 1/trabajadores) si su versión base
+ * no está más de "limiteRetraso" versiones por detrás; si no, lo rechaza y el trabajador vuelve a pedir.
+ */
+public class ServidorParametros {
+
+    static final byte PEDIR = 1;
+    static final byte ENVIAR = 2;
+    static final byte FIN = 3;
+
+    private final double[] parametros;
+    private final int numTrabajadores;
+    private final boolean sincrono;
+    private final int limiteRetraso;
+
+    private int version = 0;
+    private int trabajadoresActivos;
+
+    // Ronda síncrona en curso
+    private final double[] acumulado;
+    private int aportaciones = 0;
+
+    private long ejemplosTotales = 0;
+    private int deltasAceptados = 0;
+    private int deltasRechazados = 0;
+
+    public ServidorParametros(double[] parametrosIniciales, int numTrabajadores, boolean sincrono, int limiteRetraso) {
+        this.parametros = parametrosIniciales;
+        this.numTrabajadores = numTrabajadores;
+        this.trabajadoresActivos = numTrabajadores;
+        this.sincrono = sincrono;
+        this.limiteRetraso = limiteRetraso;
+        this.acumulado = new double[parametrosIniciales.length];
+    }
+
+    private synchronized int copiarParametros(double[] destino) {
+        System.arraycopy(parametros, 0, destino, 0, parametros.length);
+        return version;
+    }
+
+    /**
+     * Devuelve la versión resultante, o -1 si el delta llega demasiado retrasado
+     */
+    private synchronized int recibirDelta(int versionBase, int ejemplos, double[] delta) throws InterruptedException {
+        ejemplosTotales += ejemplos;
+
+        if (!sincrono) {
+            if (version - versionBase > limiteRetraso) {
+                deltasRechazados++;
+                return -1;
+            }
+            double escala = 1.0 / numTrabajadores;
+            for (int i = 0; i < parametros.length; i++) {
+                parametros[i] += escala * delta[i];
+            }
+            deltasAceptados++;
+            return ++version;
+        }
+
+        int ronda = version;
+        for (int i = 0; i < acumulado.length; i++) {
+            acumulado[i] += delta[i];
+        }
+        aportaciones++;
+        deltasAceptados++;
+
+        if (aportaciones >= trabajadoresActivos) {
+            cerrarRonda();
+        } else {
+            while (version == ronda) {
+                wait();
+            }
+        }
+        return version;
+    }
+
+    // Se llama con el monitor tomado
+    private void cerrarRonda() {
+        if (aportaciones > 0) {
+            for (int i = 0; i < parametros.length; i++) {
+                parametros[i] += acumulado[i] / aportaciones;
+                acumulado[i] = 0;
+            }
+        }
+        aportaciones = 0;
+        version++;
+        notifyAll();
+    }
+
+    private synchronized void trabajadorTerminado() {
+        trabajadoresActivos--;
+        // Si el resto ya estaba esperando a este trabajador, se cierra la ronda sin él
+        if (sincrono && aportaciones > 0 && aportaciones >= trabajadoresActivos) {
+            cerrarRonda();
+        }
+        notifyAll();
+    }
+
+    private synchronized void esperarFin() throws InterruptedException {
+        while (trabajadoresActivos > 0) {
+            wait();
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            double[] buffer = new double[parametros.length];
+            while (true) {
+                byte comando = entrada.readByte();
+                if (comando == PEDIR) {
+                    int v = copiarParametros(buffer);
+                    salida.writeInt(v);
+                    salida.writeInt(buffer.length);
+                    for (double p : buffer) salida.writeDouble(p);
+                    salida.flush();
+                } else if (comando == ENVIAR) {
+                    int versionBase = entrada.readInt();
+                    int ejemplos = entrada.readInt();
+                    int n = entrada.readInt();
+                    if (n != buffer.length) {
+                        throw new IOException("Delta de tamaño " + n + ", se esperaba " + buffer.length);
+                    }
+                    for (int i = 0; i < n; i++) buffer[i] = entrada.readDouble();
+                    int v = recibirDelta(versionBase, ejemplos, buffer);
+                    salida.writeByte(v >= 0 ? 1 : 0);
+                    salida.writeInt(v);
+                    salida.flush();
+                } else {
+                    break;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            System.err.println("❌ Error con un trabajador: " + e.getMessage());
+        } finally {
+            trabajadorTerminado();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 5055;
+        int trabajadores = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        boolean sincrono = args.length <= 2 || args[2].equalsIgnoreCase("sync");
+        int limiteRetraso = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        String rutaJSON = args.length > 4 ? args[4] : "preguntas.json";
+        int segundosEspera = args.length > 5 ? Integer.parseInt(args[5]) : 120;
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+        ChatRLAgentV2 agente = new ChatRLAgentV2();
+        agente.inicializarRed();
+        MultiLayerNetwork maestro = agente.getModel();
+
+        ServidorParametros servidor = new ServidorParametros(
+                maestro.params().toDoubleVector(), trabajadores, sincrono, limiteRetraso);
+
+        long inicio = 0;
+        try (ServerSocket escucha = new ServerSocket(puerto, trabajadores, InetAddress.getLoopbackAddress())) {
+            System.out.println("🖧 Servidor de parámetros en localhost:" + escucha.getLocalPort() +
+                    " | Modo: " + (sincrono ? "síncrono" : "asíncrono (retraso máx. " + limiteRetraso + ")") +
+                    " | Trabajadores: " + trabajadores +
+                    " | Parámetros: " + servidor.parametros.length);
+            // Línea fácil de leer para EntrenamientoDistribuido (necesaria con el puerto 0)
+            System.out.println("PUERTO " + escucha.getLocalPort());
+
+            escucha.setSoTimeout(segundosEspera * 1000);
+            for (int i = 0; i < trabajadores; i++) {
+                Socket socket;
+                try {
+                    socket = escucha.accept();
+                } catch (SocketTimeoutException e) {
+                    throw new SocketTimeoutException("Solo se conectaron " + i + " de " + trabajadores +
+                            " trabajadores en " + segundosEspera + " s");
+                }
+                if (i == 0) inicio = System.nanoTime();
+                Thread hilo = new Thread(() -> servidor.atender(socket), "ps-trabajador-" + i);
+                // Si falta algún trabajador la JVM no se queda colgada en los que ya llegaron
+                hilo.setDaemon(true);
+                hilo.start();
+            }
+            servidor.esperarFin();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        maestro.setParams(Nd4j.create(servidor.parametros).reshape(1, servidor.parametros.length));
+        double precision = EntrenadorParaleloV2.precision(agente, maestro);
+
+        double ejemplosPorSegundo = servidor.ejemplosTotales / segundos;
+        System.out.println("📊 Versión final: " + servidor.version +
+                " | Deltas aceptados: " + servidor.deltasAceptados +
+                " | Rechazados por retraso: " + servidor.deltasRechazados);
+        System.out.println("📊 Ejemplos: " + servidor.ejemplosTotales +
+                " | Tiempo: " + String.format("%.2f", segundos) + " s" +
+                " | Ejemplos/s: " + String.format("%.0f", ejemplosPorSegundo) +
+                " | Precisión maestro: " + String.format("%.1f", precision) + "%");
+        // Línea fácil de leer para EntrenamientoDistribuido
+        System.out.println("RESULTADO " + ejemplosPorSegundo + " " + precision);
+    }
+}
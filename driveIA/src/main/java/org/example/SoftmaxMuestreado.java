@@ -0,0 +1,334 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Clasificador entrada → ocultas (ReLU) → respuestas con dos modos de entrenamiento:
+ * - COMPLETO: softmax + entropía cruzada sobre todas las respuestas (lo que hace el OutputLayer MCXENT)
+ * - MUESTREADO: softmax muestreado, solo sobre la respuesta correcta y "negativos" respuestas
+ *   muestreadas (uniforme o por frecuencia), con corrección log Q para que el gradiente siga
+ *   apuntando al softmax completo
+ *
+ * En modo muestreado un paso cuesta O(entrada·ocultas + negativos·ocultas), independiente del
+ * número de respuestas. Está escrito sobre arrays primitivos porque el OutputLayer de DL4J
+ * siempre calcula la pérdida densa sobre todas las salidas. La inferencia puntúa el catálogo completo.
+ */
+public class SoftmaxMuestreado {
+
+    public enum Modo { COMPLETO, MUESTREADO }
+
+    public enum Muestreador { UNIFORME, FRECUENCIA }
+
+    private final int entrada, ocultas, salidas;
+    private final float[] w1;   // [entrada][ocultas]
+    private final float[] b1;
+    private final float[] w2;   // [salidas][ocultas]: una fila por respuesta
+    private final float[] b2;
+    private final float tasa;
+    private final Random random;
+
+    private Modo modo = Modo.COMPLETO;
+    private int negativos;
+    private Muestreador muestreador = Muestreador.UNIFORME;
+
+    // Método alias (Vose) para muestrear por frecuencia en O(1) y log Q por respuesta
+    private double[] probAlias;
+    private int[] alias;
+    private double[] logQ;
+
+    // Buffers reutilizados
+    private final float[] h;
+    private final float[] dh;
+    private final double[] logits;
+    private final int[] candidatos;
+
+    public SoftmaxMuestreado(int entrada, int ocultas, int salidas, float tasa, long semilla) {
+        this.entrada = entrada;
+        this.ocultas = ocultas;
+        this.salidas = salidas;
+        this.tasa = tasa;
+        this.random = new Random(semilla);
+
+        w1 = new float[entrada * ocultas];
+        b1 = new float[ocultas];
+        w2 = new float[salidas * ocultas];
+        b2 = new float[salidas];
+        float limite1 = (float) Math.sqrt(6.0 / (entrada + ocultas));
+        float limite2 = (float) Math.sqrt(6.0 / (ocultas + salidas));
+        for (int i = 0; i < w1.length; i++) w1[i] = (random.nextFloat() * 2 - 1) * limite1;
+        for (int i = 0; i < w2.length; i++) w2[i] = (random.nextFloat() * 2 - 1) * limite2;
+
+        h = new float[ocultas];
+        dh = new float[ocultas];
+        logits = new double[salidas];
+        candidatos = new int[salidas];
+    }
+
+    public void modoCompleto() {
+        this.modo = Modo.COMPLETO;
+    }
+
+    /**
+     * Activa el softmax muestreado. Con FRECUENCIA, "conteos[r]" es cuántas veces aparece la respuesta r
+     */
+    public void modoMuestreado(int negativos, Muestreador muestreador, int[] conteos) {
+        // Con 0 negativos el softmax es sobre un solo candidato (gradiente nulo); con menos, pérdida NaN
+        if (negativos < 1) {
+            throw new IllegalArgumentException("negativos debe ser >= 1: " + negativos);
+        }
+        this.modo = Modo.MUESTREADO;
+        this.negativos = Math.min(negativos, salidas - 1);
+        this.muestreador = muestreador;
+
+        double[] q = new double[salidas];
+        if (muestreador == Muestreador.FRECUENCIA) {
+            // Suavizado (potencia 3/4 como en word2vec) para no ignorar las respuestas raras
+            double total = 0;
+            for (int r = 0; r < salidas; r++) {
+                q[r] = Math.pow(Math.max(1, conteos[r]), 0.75);
+                total += q[r];
+            }
+            for (int r = 0; r < salidas; r++) q[r] /= total;
+        } else {
+            Arrays.fill(q, 1.0 / salidas);
+        }
+        construirAlias(q);
+    }
+
+    private void construirAlias(double[] q) {
+        int n = q.length;
+        probAlias = new double[n];
+        alias = new int[n];
+        logQ = new double[n];
+        double[] escalada = new double[n];
+        int[] pequenos = new int[n], grandes = new int[n];
+        int np = 0, ng = 0;
+        for (int i = 0; i < n; i++) {
+            logQ[i] = Math.log(q[i]);
+            escalada[i] = q[i] * n;
+            if (escalada[i] < 1) pequenos[np++] = i; else grandes[ng++] = i;
+        }
+        while (np > 0 && ng > 0) {
+            int s = pequenos[--np], g = grandes[--ng];
+            probAlias[s] = escalada[s];
+            alias[s] = g;
+            escalada[g] = escalada[g] + escalada[s] - 1;
+            if (escalada[g] < 1) pequenos[np++] = g; else grandes[ng++] = g;
+        }
+        while (ng > 0) probAlias[grandes[--ng]] = 1;
+        while (np > 0) probAlias[pequenos[--np]] = 1;
+    }
+
+    private int muestrear() {
+        int i = random.nextInt(salidas);
+        return random.nextDouble() < probAlias[i] ? i : alias[i];
+    }
+
+    private void oculta(float[] x) {
+        System.arraycopy(b1, 0, h, 0, ocultas);
+        for (int i = 0; i < entrada; i++) {
+            float xi = x[i];
+            if (xi == 0) continue; // las entradas son casi todas ceros
+            int base = i * ocultas;
+            for (int j = 0; j < ocultas; j++) h[j] += xi * w1[base + j];
+        }
+        for (int j = 0; j < ocultas; j++) if (h[j] < 0) h[j] = 0;
+    }
+
+    private double puntuacion(int r) {
+        int base = r * ocultas;
+        double z = b2[r];
+        for (int j = 0; j < ocultas; j++) z += w2[base + j] * h[j];
+        return z;
+    }
+
+    /**
+     * Respuesta con mayor puntuación sobre el catálogo completo
+     */
+    public int predecir(float[] x) {
+        oculta(x);
+        int mejor = 0;
+        double zMejor = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < salidas; r++) {
+            double z = puntuacion(r);
+            if (z > zMejor) {
+                zMejor = z;
+                mejor = r;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Un paso de SGD sobre (x, correcta). Devuelve la pérdida (muestreada o completa según el modo).
+     */
+    public double aprender(float[] x, int correcta) {
+        oculta(x);
+
+        int n;
+        if (modo == Modo.COMPLETO) {
+            n = salidas;
+            for (int r = 0; r < salidas; r++) {
+                candidatos[r] = r;
+                logits[r] = puntuacion(r);
+            }
+        } else {
+            n = negativos + 1;
+            candidatos[0] = correcta;
+            logits[0] = puntuacion(correcta) - logQ[correcta];
+            for (int k = 1; k < n; k++) {
+                int r = muestrear();
+                candidatos[k] = r;
+                // Un "negativo" que coincide con la correcta no cuenta (accidental hit)
+                logits[k] = r == correcta ? Double.NEGATIVE_INFINITY : puntuacion(r) - logQ[r];
+            }
+        }
+
+        // Softmax estable sobre los candidatos
+        double max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < n; k++) max = Math.max(max, logits[k]);
+        double suma = 0;
+        for (int k = 0; k < n; k++) {
+            logits[k] = Math.exp(logits[k] - max);
+            suma += logits[k];
+        }
+        int posCorrecta = modo == Modo.COMPLETO ? correcta : 0;
+        double perdida = -Math.log(Math.max(1e-12, logits[posCorrecta] / suma));
+
+        // Gradiente de la salida: p - 1[correcta], solo en las filas candidatas
+        Arrays.fill(dh, 0);
+        for (int k = 0; k < n; k++) {
+            double dz = logits[k] / suma - (k == posCorrecta ? 1 : 0);
+            if (dz == 0) continue;
+            int base = candidatos[k] * ocultas;
+            float paso = (float) (tasa * dz);
+            for (int j = 0; j < ocultas; j++) {
+                dh[j] += (float) dz * w2[base + j];
+                w2[base + j] -= paso * h[j];
+            }
+            b2[candidatos[k]] -= paso;
+        }
+
+        // Capa oculta (ReLU), solo las filas de w1 con entrada distinta de cero
+        for (int j = 0; j < ocultas; j++) {
+            if (h[j] <= 0) dh[j] = 0;
+            b1[j] -= tasa * dh[j];
+        }
+        for (int i = 0; i < entrada; i++) {
+            float xi = x[i];
+            if (xi == 0) continue;
+            int base = i * ocultas;
+            for (int j = 0; j < ocultas; j++) w1[base + j] -= tasa * xi * dh[j];
+        }
+        return perdida;
+    }
+
+    public Modo getModo() {
+        return modo;
+    }
+
+    public int getSalidas() {
+        return salidas;
+    }
+
+    public static void main(String[] args) {
+        int negativos = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int episodios = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double tolerancia = 2.0;
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🎯 SOFTMAX MUESTREADO vs COMPLETO      ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        // ---------- Rendimiento frente al tamaño del catálogo ----------
+        System.out.println("⚡ Pasos de entrenamiento/s (26→128→N, " + negativos + " negativos)");
+        for (int respuestas : new int[]{1_000, 10_000, 100_000}) {
+            Random random = new Random(respuestas);
+            float[][] entradas = new float[256][26];
+            for (float[] x : entradas) for (int i = 0; i < 6; i++) x[random.nextInt(26)] = 1;
+            int[] conteos = new int[respuestas];
+            Arrays.fill(conteos, 1);
+
+            StringBuilder linea = new StringBuilder(String.format("  N=%-7d", respuestas));
+            for (Modo modo : Modo.values()) {
+                SoftmaxMuestreado red = new SoftmaxMuestreado(26, 128, respuestas, 0.05f, 1L);
+                if (modo == Modo.MUESTREADO) red.modoMuestreado(negativos, Muestreador.UNIFORME, conteos);
+                int pasos = modo == Modo.COMPLETO ? Math.max(200, 2_000_000 / respuestas) : 20_000;
+                for (int i = 0; i < pasos / 10; i++) red.aprender(entradas[i & 255], random.nextInt(respuestas));
+                long inicio = System.nanoTime();
+                for (int i = 0; i < pasos; i++) red.aprender(entradas[i & 255], random.nextInt(respuestas));
+                double porSegundo = pasos / ((System.nanoTime() - inicio) / 1e9);
+                linea.append(String.format(" | %-10s %10.0f pasos/s", modo, porSegundo));
+            }
+            System.out.println(linea);
+        }
+
+        // ---------- Precisión en preguntas.json ----------
+        System.out.println("\n🎯 Precisión en preguntas.json (" + episodios + " episodios, tolerancia ±" + tolerancia + " puntos)");
+        ChatRLAgentV2.cargarDesdeJSON("preguntas.json");
+        List<String> respuestas = ChatRLAgentV2.getRespuestasUnicas();
+        List<Map.Entry<String, String>> pares = new ArrayList<>(ChatRLAgentV2.getRespuestasCorrectas().entrySet());
+        float[][] xs = new float[pares.size()][26];
+        int[] ys = new int[pares.size()];
+        int[] conteos = new int[respuestas.size()];
+        for (int p = 0; p < pares.size(); p++) {
+            int mascara = CompactadorDataset.mascara(pares.get(p).getKey());
+            for (int j = 0; j < 26; j++) xs[p][j] = (mascara >>> j) & 1;
+            ys[p] = respuestas.indexOf(pares.get(p).getValue());
+            conteos[ys[p]]++;
+        }
+
+        double precisionCompleta = -1;
+        Object[][] configuraciones = {{Modo.COMPLETO, null}, {Modo.MUESTREADO, Muestreador.UNIFORME}, {Modo.MUESTREADO, Muestreador.FRECUENCIA}};
+        for (Object[] conf : configuraciones) {
+            SoftmaxMuestreado red = new SoftmaxMuestreado(26, 128, respuestas.size(), 0.05f, 42L);
+            if (conf[0] == Modo.MUESTREADO) red.modoMuestreado(negativos, (Muestreador) conf[1], conteos);
+            Random orden = new Random(42);
+            int[] indices = new int[pares.size()];
+            for (int i = 0; i < indices.length; i++) indices[i] = i;
+
+            long inicio = System.nanoTime();
+            for (int ep = 0; ep < episodios; ep++) {
+                for (int i = indices.length - 1; i > 0; i--) {
+                    int j = orden.nextInt(i + 1);
+                    int t = indices[i]; indices[i] = indices[j]; indices[j] = t;
+                }
+                for (int i : indices) red.aprender(xs[i], ys[i]);
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            int aciertos = 0;
+            for (int p = 0; p < pares.size(); p++) if (red.predecir(xs[p]) == ys[p]) aciertos++;
+            double precision = aciertos * 100.0 / pares.size();
+            if (precisionCompleta < 0) precisionCompleta = precision;
+
+            String nombre = conf[0] == Modo.COMPLETO ? "completo" : "muestreado/" + conf[1].toString().toLowerCase();
+            String dentro = Math.abs(precision - precisionCompleta) <= tolerancia ? "✅" : "❌";
+            System.out.println(String.format("  %-22s | %5.2f s | precisión %5.1f%% | Δ vs completo %+5.1f %s",
+                    nombre, segundos, precision, precision - precisionCompleta, dentro));
+        }
+
+        // ---------- El mismo modo dentro de ChatRLAgentV2 ----------
+        System.out.println("\n🤖 ChatRLAgentV2 (" + episodios + " episodios)");
+        for (boolean muestreado : new boolean[]{false, true}) {
+            ChatRLAgentV2 agente = new ChatRLAgentV2(42L);
+            agente.inicializarRed();
+            if (muestreado) agente.activarSoftmaxMuestreado(negativos, Muestreador.FRECUENCIA);
+            long inicio = System.nanoTime();
+            for (int ep = 0; ep < episodios; ep++) agente.entrenarEpoca();
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+
+            agente.disableExploration();
+            int aciertos = 0;
+            for (Map.Entry<String, String> par : pares) {
+                if (agente.selectResponse(par.getKey()).equals(par.getValue())) aciertos++;
+            }
+            System.out.println(String.format("  %-22s | %5.2f s | precisión %5.1f%%",
+                    muestreado ? "muestreado/frecuencia" : "MCXENT denso", segundos, aciertos * 100.0 / pares.size()));
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.example;
+
+/**
+ * Árbol de sumas sobre un array primitivo para muestrear índices en proporción
+ * a su prioridad. Las hojas ocupan arbol[capacidad .. 2*capacidad-1] y cada nodo
+ * interno guarda la suma de sus dos hijos, así que actualizar y muestrear cuestan O(log n).
+ */
+public class SumTree {
+
+    private final int capacidad;   // potencia de 2 >= tamaño pedido
+    private final double[] arbol;
+
+    public SumTree(int tamano) {
+        if (tamano < 1) {
+            throw new IllegalArgumentException("El tamaño debe ser >= 1");
+        }
+        int c = 1;
+        while (c < tamano) c <<= 1;
+        this.capacidad = c;
+        this.arbol = new double[2 * c];
+    }
+
+    public void actualizar(int indice, double prioridad) {
+        if (prioridad < 0) {
+            throw new IllegalArgumentException("La prioridad no puede ser negativa");
+        }
+        int nodo = indice + capacidad;
+        double cambio = prioridad - arbol[nodo];
+        while (nodo >= 1) {
+            arbol[nodo] += cambio;
+            nodo >>= 1;
+        }
+    }
+
+    public double prioridad(int indice) {
+        return arbol[indice + capacidad];
+    }
+
+    public double total() {
+        return arbol[1];
+    }
+
+    /**
+     * Índice de la hoja cuya suma acumulada contiene "valor" (0 <= valor < total)
+     */
+    public int buscar(double valor) {
+        int nodo = 1;
+        while (nodo < capacidad) {
+            int izquierdo = nodo << 1;
+            if (valor < arbol[izquierdo] || arbol[izquierdo + 1] <= 0) {
+                nodo = izquierdo;
+            } else {
+                valor -= arbol[izquierdo];
+                nodo = izquierdo + 1;
+            }
+        }
+        return nodo - capacidad;
+    }
+}
@@ -6,6 +6,7 @@ import org.deeplearning4j.nn.conf.layers.DenseLayer;
 import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
 import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.memory.MemoryWorkspace;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.linalg.learning.config.Adam;
@@ -27,12 +28,23 @@ public class TextRLAgent {
     private Random random = new Random();
     private MultiLayerNetwork model;
 
+    // Buffers reutilizados en cada paso (ver EspacioTrabajo)
+    private static final String WS = "WS_TEXT_AGENT";
+    private final INDArray entrada;
+    private final INDArray siguienteEntrada;
+    private final INDArray objetivo;
+
     // Mapeo de letras a números
     private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz";
 
     public TextRLAgent() {
+        this(Precision.FP32);
+    }
+
+    public TextRLAgent(Precision precision) {
         // Red neuronal más grande para texto
         MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .dataType(precision.tipo)
                 .updater(new Adam(LEARNING_RATE))
                 .list()
                 .layer(new DenseLayer.Builder().nIn(STATE_SIZE).nOut(64)
@@ -48,6 +60,10 @@ public class TextRLAgent {
 
         model = new MultiLayerNetwork(config);
         model.init();
+
+        entrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        siguienteEntrada = Nd4j.create(precision.tipo, 1, STATE_SIZE);
+        objetivo = Nd4j.create(precision.tipo, 1, ACTIONS);
     }
 
     // Convertir letra a número (0-25)
@@ -66,23 +82,24 @@ public class TextRLAgent {
             return random.nextInt(ACTIONS); // Letra aleatoria
         }
 
-        INDArray input = Nd4j.create(new double[][]{{currentLetter}});
-        INDArray output = model.output(input);
-        return Nd4j.argMax(output, 1).getInt(0);
+        entrada.putScalar(0, currentLetter);
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            return EspacioTrabajo.argMax(model.output(entrada, false, ws));
+        }
     }
 
     // Aprender de la recompensa
     public void learn(int currentLetter, int nextLetter, double reward) {
-        INDArray input = Nd4j.create(new double[][]{{currentLetter}});
-        INDArray target = model.output(input).dup();
+        entrada.putScalar(0, currentLetter);
+        siguienteEntrada.putScalar(0, nextLetter);
 
-        INDArray nextInput = Nd4j.create(new double[][]{{nextLetter}});
-        INDArray futureQ = model.output(nextInput);
-
-        double qUpdated = reward + GAMMA * futureQ.maxNumber().doubleValue();
-        target.putScalar(nextLetter, qUpdated);
+        try (MemoryWorkspace ws = EspacioTrabajo.abrir(WS)) {
+            objetivo.assign(model.output(entrada, false, ws));
+            double futureQ = EspacioTrabajo.max(model.output(siguienteEntrada, false, ws));
+            objetivo.putScalar(nextLetter, reward + GAMMA * futureQ);
+        }
 
-        model.fit(input, target);
+        model.fit(entrada, objetivo);
         epsilon *= EPSILON_DECAY;
     }
 
@@ -96,6 +113,16 @@ public class TextRLAgent {
         epsilon = 1.0;
     }
 
+    // Compilar: una sola pasada de la red para los 26 estados → tabla 26x26
+    public PoliticaTextoCompilada compilar(double temperatura) {
+        double[][] estados = new double[ACTIONS][1];
+        for (int i = 0; i < ACTIONS; i++) {
+            estados[i][0] = i;
+        }
+        INDArray tablaQ = model.output(Nd4j.create(estados));
+        return new PoliticaTextoCompilada(tablaQ.toDoubleMatrix(), temperatura);
+    }
+
     public static void main(String[] args) {
         TextRLAgent agent = new TextRLAgent();
 
@@ -132,22 +159,47 @@ public class TextRLAgent {
         System.out.println("🧪 PRUEBA DEL AGENTE - Generando texto\n");
 
         agent.disableExploration();
+        PoliticaTextoCompilada politica = agent.compilar(1.0);
 
         for (int test = 0; test < 5; test++) {
-            StringBuilder generatedWord = new StringBuilder();
             int currentLetter = agent.random.nextInt(26); // Letra inicial aleatoria
-            generatedWord.append(agent.numberToLetter(currentLetter));
 
-            // Generar 5 letras más
-            for (int i = 0; i < 5; i++) {
-                int nextLetter = agent.selectAction(currentLetter);
-                generatedWord.append(agent.numberToLetter(nextLetter));
-                currentLetter = nextLetter;
-            }
+            // Generar 5 letras más (voraz, desde la tabla compilada)
+            byte[] letras = new byte[6];
+            politica.generarVoraz(new int[]{currentLetter}, 5, letras);
 
-            System.out.println("Generado " + (test + 1) + ": " + generatedWord.toString());
+            System.out.println("Generado " + (test + 1) + ": " + PoliticaTextoCompilada.aTexto(letras, 0, 6));
         }
 
+        // Beam search desde la misma tabla
+        for (int inicial : new int[]{agent.letterToNumber('h'), agent.letterToNumber('j')}) {
+            int[][] haz = politica.beamSearch(inicial, 5, 3);
+            System.out.println("Beam search desde '" + agent.numberToLetter(inicial) + "': " + PoliticaTextoCompilada.aTexto(haz[0]));
+        }
+
+        // RENDIMIENTO: muchas secuencias en paralelo
+        int secuencias = 200_000;
+        int longitud = 63;
+        int[] iniciales = new int[secuencias];
+        for (int i = 0; i < secuencias; i++) {
+            iniciales[i] = agent.random.nextInt(26);
+        }
+        byte[] salida = new byte[secuencias * (longitud + 1)];
+
+        politica.generarVoraz(iniciales, longitud, salida); // calentamiento JIT
+        long inicio = System.nanoTime();
+        politica.generarVoraz(iniciales, longitud, salida);
+        double segVoraz = (System.nanoTime() - inicio) / 1e9;
+
+        politica.generarMuestreado(iniciales, longitud, 42L, salida);
+        inicio = System.nanoTime();
+        politica.generarMuestreado(iniciales, longitud, 43L, salida);
+        double segMuestreo = (System.nanoTime() - inicio) / 1e9;
+
+        long caracteres = (long) secuencias * longitud;
+        System.out.println("\n⚡ Voraz:     " + String.format("%.1f", caracteres / segVoraz / 1e6) + " M caracteres/s");
+        System.out.println("⚡ Muestreado: " + String.format("%.1f", caracteres / segMuestreo / 1e6) + " M caracteres/s");
+
         System.out.println("\n✅ Prueba terminada.");
     }
 }
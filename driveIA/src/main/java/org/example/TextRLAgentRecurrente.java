@@ -0,0 +1,282 @@
+package org.example;
+
+import org.deeplearning4j.nn.conf.BackpropType;
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.LSTM;
+import org.deeplearning4j.nn.conf.layers.RnnOutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.json.JSONArray;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Agente de texto recurrente (LSTM) con contexto: a diferencia de TextRLAgent,
+ * que solo ve la última letra, la red recuerda todo lo leído dentro del fragmento.
+ *
+ * El corpus se lee del disco en fragmentos de tamaño fijo, con "filas" lectores
+ * independientes que empiezan en distintas posiciones del fichero, y se entrena
+ * con backpropagation truncada (TBPTT). Los buffers se reservan una sola vez, así
+ * que la memoria no depende del tamaño del corpus.
+ */
+public class TextRLAgentRecurrente {
+
+    // Vocabulario: 26 letras + espacio (cualquier otro carácter cuenta como espacio)
+    private static final int VOCABULARIO = 27;
+    private static final int ESPACIO = 26;
+    private static final double LEARNING_RATE = 0.005;
+
+    private final int filas;          // flujos paralelos (tamaño del minilote)
+    private final int longitudFragmento;
+    private final int longitudTBPTT;
+
+    private final Precision precision;
+    private final MultiLayerNetwork model;
+    private final Random random = new Random();
+
+    // Buffers reutilizados en cada fragmento
+    private final INDArray entradas;
+    private final INDArray etiquetas;
+    private final INDArray mascara;
+    private final int[] ultimoSimbolo;
+
+    public TextRLAgentRecurrente(int unidadesLSTM, int filas, int longitudFragmento, int longitudTBPTT) {
+        this(unidadesLSTM, filas, longitudFragmento, longitudTBPTT, Precision.FP32);
+    }
+
+    public TextRLAgentRecurrente(int unidadesLSTM, int filas, int longitudFragmento, int longitudTBPTT,
+                                 Precision precision) {
+        this.precision = precision;
+        this.filas = filas;
+        this.longitudFragmento = longitudFragmento;
+        this.longitudTBPTT = longitudTBPTT;
+
+        MultiLayerConfiguration config = new NeuralNetConfiguration.Builder()
+                .dataType(precision.tipo)
+                .updater(new Adam(LEARNING_RATE))
+                .list()
+                .layer(new LSTM.Builder().nIn(VOCABULARIO).nOut(unidadesLSTM)
+                        .activation(Activation.TANH).build())
+                .layer(new RnnOutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                        .activation(Activation.SOFTMAX)
+                        .nOut(VOCABULARIO).build())
+                .backpropType(BackpropType.TruncatedBPTT)
+                .tBPTTForwardLength(longitudTBPTT)
+                .tBPTTBackwardLength(longitudTBPTT)
+                .build();
+
+        model = new MultiLayerNetwork(config);
+        model.init();
+
+        entradas = Nd4j.create(precision.tipo, new long[]{filas, VOCABULARIO, longitudFragmento}, 'f');
+        etiquetas = Nd4j.create(precision.tipo, new long[]{filas, VOCABULARIO, longitudFragmento}, 'f');
+        mascara = Nd4j.create(precision.tipo, new long[]{filas, longitudFragmento}, 'f');
+        ultimoSimbolo = new int[filas];
+    }
+
+    static int simbolo(char c) {
+        c = Character.toLowerCase(c);
+        return (c >= 'a' && c <= 'z') ? c - 'a' : ESPACIO;
+    }
+
+    static char caracter(int simbolo) {
+        return simbolo == ESPACIO ? ' ' : (char) ('a' + simbolo);
+    }
+
+    /**
+     * Lector de un tramo del fichero: empieza en "desde" y se detiene tras unos "limite" caracteres
+     * (aproximadamente bytes, exacto para texto ASCII). Colapsa espacios repetidos.
+     */
+    private static final class Flujo implements Closeable {
+        private final Reader lector;
+        private final long limite;
+        private long leidos = 0;
+        private int anterior = ESPACIO;
+
+        Flujo(Path ruta, long desde, long limite) throws IOException {
+            FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ);
+            canal.position(desde);
+            this.lector = new BufferedReader(new InputStreamReader(Channels.newInputStream(canal), StandardCharsets.UTF_8), 1 << 16);
+            this.limite = limite;
+        }
+
+        // Siguiente símbolo, o -1 si el tramo se ha terminado
+        int siguiente() throws IOException {
+            while (leidos < limite) {
+                int c = lector.read();
+                if (c < 0) break;
+                leidos++;
+                int s = simbolo((char) c);
+                if (s == ESPACIO && anterior == ESPACIO) continue;
+                anterior = s;
+                return s;
+            }
+            return -1;
+        }
+
+        @Override
+        public void close() throws IOException {
+            lector.close();
+        }
+    }
+
+    /**
+     * Una pasada completa por el corpus. Devuelve los caracteres entrenados.
+     */
+    public long entrenarEpoca(Path corpus, int informarCada) throws IOException {
+        long tamano = Files.size(corpus);
+        long tramo = Math.max(1, tamano / filas);
+        Flujo[] flujos = new Flujo[filas];
+        long caracteres = 0;
+        long inicio = System.nanoTime();
+
+        try {
+            for (int b = 0; b < filas; b++) {
+                flujos[b] = new Flujo(corpus, b * tramo, b == filas - 1 ? tamano - b * tramo : tramo);
+                ultimoSimbolo[b] = flujos[b].siguiente();
+            }
+
+            int fragmentos = 0;
+            while (true) {
+                entradas.assign(0);
+                etiquetas.assign(0);
+                mascara.assign(0);
+
+                int pasosValidos = 0;
+                for (int b = 0; b < filas; b++) {
+                    int actual = ultimoSimbolo[b];
+                    for (int t = 0; t < longitudFragmento && actual >= 0; t++) {
+                        int siguiente = flujos[b].siguiente();
+                        if (siguiente < 0) {
+                            actual = -1;
+                            break;
+                        }
+                        entradas.putScalar(b, actual, t, 1.0);
+                        etiquetas.putScalar(b, siguiente, t, 1.0);
+                        mascara.putScalar(b, t, 1.0);
+                        actual = siguiente;
+                        pasosValidos++;
+                    }
+                    ultimoSimbolo[b] = actual;
+                }
+                if (pasosValidos == 0) break;
+
+                model.fit(new DataSet(entradas, etiquetas, null, mascara));
+                caracteres += pasosValidos;
+                fragmentos++;
+
+                if (informarCada > 0 && fragmentos % informarCada == 0) {
+                    double segundos = (System.nanoTime() - inicio) / 1e9;
+                    long memoriaMB = (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) >> 20;
+                    System.out.println("Fragmento " + fragmentos +
+                            " | Caracteres: " + caracteres +
+                            " | Caracteres/s: " + String.format("%.0f", caracteres / segundos) +
+                            " | Pérdida: " + String.format("%.3f", model.score()) +
+                            " | Heap: " + memoriaMB + " MB");
+                }
+            }
+        } finally {
+            for (Flujo f : flujos) {
+                if (f != null) f.close();
+            }
+        }
+        return caracteres;
+    }
+
+    /**
+     * Genera texto a partir de una semilla usando el estado recurrente (rnnTimeStep)
+     */
+    public String generar(String semilla, int longitud) {
+        model.rnnClearPreviousState();
+        INDArray paso = Nd4j.create(precision.tipo, 1, VOCABULARIO);
+        INDArray salida = null;
+
+        for (char c : semilla.toCharArray()) {
+            paso.assign(0);
+            paso.putScalar(0, simbolo(c), 1.0);
+            salida = model.rnnTimeStep(paso);
+        }
+
+        StringBuilder texto = new StringBuilder(semilla);
+        for (int i = 0; i < longitud && salida != null; i++) {
+            double u = random.nextDouble();
+            double acumulado = 0;
+            int elegido = ESPACIO;
+            for (int s = 0; s < VOCABULARIO; s++) {
+                acumulado += salida.getDouble(0, s);
+                if (u < acumulado) {
+                    elegido = s;
+                    break;
+                }
+            }
+            texto.append(caracter(elegido));
+
+            paso.assign(0);
+            paso.putScalar(0, elegido, 1.0);
+            salida = model.rnnTimeStep(paso);
+        }
+        model.rnnClearPreviousState();
+        return texto.toString();
+    }
+
+    // Si no se indica corpus, se construye uno pequeño con las preguntas y respuestas del JSON
+    private static Path corpusPorDefecto() throws IOException {
+        JSONArray pares = new JSONArray(new String(Files.readAllBytes(Paths.get("preguntas.json")), StandardCharsets.UTF_8));
+        Path temporal = Files.createTempFile("corpus", ".txt");
+        try (BufferedWriter escritor = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            for (int repeticion = 0; repeticion < 20; repeticion++) {
+                for (int i = 0; i < pares.length(); i++) {
+                    escritor.write(pares.getJSONObject(i).getString("pregunta"));
+                    escritor.write(' ');
+                    escritor.write(pares.getJSONObject(i).getString("respuesta"));
+                    escritor.write('\n');
+                }
+            }
+        }
+        temporal.toFile().deleteOnExit();
+        return temporal;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path corpus = args.length > 0 ? Paths.get(args[0]) : corpusPorDefecto();
+        int epocas = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int filas = 32;
+        int longitudFragmento = 200;
+        int longitudTBPTT = 50;
+
+        TextRLAgentRecurrente agent = new TextRLAgentRecurrente(128, filas, longitudFragmento, longitudTBPTT);
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🔁 AGENTE DE TEXTO RECURRENTE (LSTM)   ║");
+        System.out.println("║  Corpus en streaming + TBPTT           ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println("📄 Corpus: " + corpus + " (" + Files.size(corpus) + " bytes)");
+        System.out.println("⚙️ Flujos: " + filas + " | Fragmento: " + longitudFragmento + " | TBPTT: " + longitudTBPTT + "\n");
+
+        for (int ep = 1; ep <= epocas; ep++) {
+            long inicio = System.nanoTime();
+            long caracteres = agent.entrenarEpoca(corpus, 50);
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.println("Época " + ep + "/" + epocas +
+                    " | Caracteres: " + caracteres +
+                    " | Caracteres/s: " + String.format("%.0f", caracteres / segundos));
+            System.out.println("  Muestra: \"" + agent.generar("hola ", 60) + "\"\n");
+        }
+
+        System.out.println("✅ Entrenamiento terminado.");
+    }
+}
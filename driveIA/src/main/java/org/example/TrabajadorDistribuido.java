@@ -0,0 +1,118 @@
+package org.example;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.nd4j.linalg.dataset.DataSet;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Iterator;
+
+/**
+ * Trabajador del entrenamiento distribuido: un proceso JVM independiente que
+ * pide los pesos al ServidorParametros, entrena unos minilotes sobre su
+ * fragmento del fichero de preguntas y devuelve el delta (pesos nuevos - pesos base).
+ */
+public class TrabajadorDistribuido {
+
+    public static void main(String[] args) throws Exception {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 5055;
+        int id = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+        int total = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        int epocas = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        int pasosLocales = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+        int lote = args.length > 5 ? Integer.parseInt(args[5]) : 16;
+        String rutaJSON = args.length > 6 ? args[6] : "preguntas.json";
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+        ChatRLAgentV2 agente = new ChatRLAgentV2();
+        agente.inicializarRed();
+        MultiLayerNetwork red = agente.getModel();
+        DataSet fragmento = EntrenadorParaleloV2.crearFragmento(agente, id, total);
+
+        try (Socket socket = conectar(puerto);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+
+            int numParametros = (int) red.numParams();
+            double[] base = new double[numParametros];
+            long ejemplosTotales = 0;
+            int rechazados = 0;
+            long inicio = System.nanoTime();
+
+            int version = pedir(entrada, salida, base, red);
+            for (int ep = 0; ep < epocas; ep++) {
+                fragmento.shuffle();
+                Iterator<DataSet> lotes = fragmento.batchBy(lote).iterator();
+
+                while (lotes.hasNext()) {
+                    int ejemplos = 0;
+                    for (int paso = 0; paso < pasosLocales && lotes.hasNext(); paso++) {
+                        DataSet minilote = lotes.next();
+                        red.fit(minilote);
+                        ejemplos += minilote.numExamples();
+                    }
+                    ejemplosTotales += ejemplos;
+
+                    double[] nuevos = red.params().toDoubleVector();
+                    salida.writeByte(ServidorParametros.ENVIAR);
+                    salida.writeInt(version);
+                    salida.writeInt(ejemplos);
+                    salida.writeInt(numParametros);
+                    for (int i = 0; i < numParametros; i++) {
+                        salida.writeDouble(nuevos[i] - base[i]);
+                    }
+                    salida.flush();
+
+                    boolean aceptado = entrada.readByte() == 1;
+                    entrada.readInt();
+                    if (!aceptado) rechazados++;
+
+                    version = pedir(entrada, salida, base, red);
+                }
+            }
+
+            salida.writeByte(ServidorParametros.FIN);
+            salida.flush();
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.println("👷 Trabajador " + id + "/" + total +
+                    " | Ejemplos: " + ejemplosTotales +
+                    " | Ejemplos/s: " + String.format("%.0f", ejemplosTotales / segundos) +
+                    " | Deltas rechazados: " + rechazados);
+        }
+    }
+
+    /**
+     * Descarga los pesos maestros, los guarda en "base" y los carga en la red local
+     */
+    private static int pedir(DataInputStream entrada, DataOutputStream salida,
+                             double[] base, MultiLayerNetwork red) throws IOException {
+        salida.writeByte(ServidorParametros.PEDIR);
+        salida.flush();
+        int version = entrada.readInt();
+        int n = entrada.readInt();
+        if (n != base.length) {
+            throw new IOException("El servidor tiene " + n + " parámetros, la red local " + base.length);
+        }
+        for (int i = 0; i < n; i++) {
+            base[i] = entrada.readDouble();
+        }
+        red.setParams(Nd4j.create(base).reshape(1, n));
+        return version;
+    }
+
+    // El servidor puede tardar en arrancar (carga de ND4J), así que se reintenta
+    private static Socket conectar(int puerto) throws IOException, InterruptedException {
+        for (int intento = 0; ; intento++) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), puerto);
+            } catch (ConnectException e) {
+                if (intento >= 120) throw e;
+                Thread.sleep(500);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package org.example;
+
+import org.nd4j.linalg.factory.Environment;
+import org.nd4j.linalg.factory.Nd4j;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Validación cruzada de k particiones para los agentes de chat: cada pregunta se evalúa con un
+ * modelo que no la vio al entrenar, así que la precisión medida sí dice algo de generalización
+ * (los main de ChatRLAgentV2 y ChatRLAgentOptimo evalúan sobre las mismas preguntas que entrenan).
+ *
+ * Los k modelos se entrenan a la vez, uno por hilo, con su propio agente, sus buffers y su
+ * semilla. Antes de lanzarlos se reparte el presupuesto de hilos nativos de ND4J entre ellos
+ * (núcleos / k por operación) para que los k entrenamientos no se pisen los núcleos de BLAS.
+ */
+public class ValidacionCruzada {
+
+    /**
+     * Lo mínimo que necesita la validación de un agente de chat
+     */
+    private interface Adaptador {
+        void aprender(String pregunta, String respuestaCorrecta, int indiceRespuesta);
+
+        String responder(String pregunta);
+
+        void disableExploration();
+    }
+
+    private static Adaptador crear(String nombre, List<String> respuestas, long semilla) {
+        if (nombre.equals("ChatRLAgentOptimo")) {
+            ChatRLAgentOptimo agente = new ChatRLAgentOptimo(respuestas, Precision.FP32, semilla);
+            return new Adaptador() {
+                public void aprender(String p, String r, int i) { agente.learn(p, i); }
+                public String responder(String p) { return agente.selectResponse(p); }
+                public void disableExploration() { agente.disableExploration(); }
+            };
+        }
+        ChatRLAgentV2 agente = new ChatRLAgentV2(semilla);
+        agente.inicializarRed();
+        return new Adaptador() {
+            public void aprender(String p, String r, int i) { agente.learn(p, agente.selectResponse(p), r); }
+            public String responder(String p) { return agente.selectResponse(p); }
+            public void disableExploration() { agente.disableExploration(); }
+        };
+    }
+
+    /**
+     * Resultado de una partición: precisión y recompensa en las preguntas apartadas y en las de
+     * entrenamiento (la diferencia es el sobreajuste)
+     */
+    static final class Particion {
+        int indice, preguntasPrueba, respuestaVista;
+        double precisionPrueba, precisionVistas, recompensaPrueba, precisionEntrenamiento, segundos;
+    }
+
+    private final String agente;
+    private final List<Map.Entry<String, String>> pares;
+    private final List<String> respuestas;
+    private final Map<String, Integer> indiceRespuesta = new HashMap<>();
+    private final int k;
+    private final int epocas;
+    private final long semilla;
+
+    public ValidacionCruzada(String agente, Map<String, String> respuestasCorrectas, List<String> respuestas,
+                             int k, int epocas, long semilla) {
+        if (k < 2 || k > respuestasCorrectas.size()) {
+            throw new IllegalArgumentException("k debe estar entre 2 y el número de pares: " + k);
+        }
+        this.agente = agente;
+        this.respuestas = respuestas;
+        for (int i = 0; i < respuestas.size(); i++) indiceRespuesta.put(respuestas.get(i), i);
+        this.k = k;
+        this.epocas = epocas;
+        this.semilla = semilla;
+        // Orden fijo antes de barajar: las particiones solo dependen de la semilla
+        this.pares = new ArrayList<>(new TreeMap<>(respuestasCorrectas).entrySet());
+        Collections.shuffle(this.pares, new Random(semilla));
+    }
+
+    /**
+     * Entrena con todas las particiones menos "prueba" y evalúa en las dos partes.
+     * prueba = -1: entrena con todo (referencia de un único entrenamiento).
+     */
+    Particion entrenarParticion(int prueba) {
+        long semillaParticion = semilla + prueba + 1;
+        Nd4j.getRandom().setSeed(semillaParticion);
+        long inicio = System.nanoTime();
+
+        List<Map.Entry<String, String>> entrenamiento = new ArrayList<>();
+        List<Map.Entry<String, String>> apartados = new ArrayList<>();
+        for (int i = 0; i < pares.size(); i++) {
+            (i % k == prueba ? apartados : entrenamiento).add(pares.get(i));
+        }
+
+        Adaptador modelo = crear(agente, respuestas, semillaParticion);
+        Random random = new Random(semillaParticion);
+        for (int ep = 0; ep < epocas; ep++) {
+            Collections.shuffle(entrenamiento, random);
+            for (Map.Entry<String, String> par : entrenamiento) {
+                modelo.aprender(par.getKey(), par.getValue(), indiceRespuesta.get(par.getValue()));
+            }
+        }
+        modelo.disableExploration();
+
+        Particion p = new Particion();
+        p.indice = prueba;
+        p.precisionEntrenamiento = evaluar(modelo, entrenamiento, null)[0];
+        if (!apartados.isEmpty()) {
+            // Una respuesta que solo aparece en preguntas apartadas no se puede acertar
+            Set<String> vistas = new HashSet<>();
+            for (Map.Entry<String, String> par : entrenamiento) vistas.add(par.getValue());
+            double[] r = evaluar(modelo, apartados, vistas);
+            p.preguntasPrueba = apartados.size();
+            p.respuestaVista = (int) r[3];
+            p.precisionPrueba = r[0];
+            p.recompensaPrueba = r[1];
+            p.precisionVistas = r[2];
+        }
+        p.segundos = (System.nanoTime() - inicio) / 1e9;
+        return p;
+    }
+
+    /**
+     * {precisión %, recompensa media, precisión % entre las de respuesta vista, cuántas la tienen}
+     */
+    private static double[] evaluar(Adaptador modelo, List<Map.Entry<String, String>> datos, Set<String> vistas) {
+        int aciertos = 0, conVista = 0, aciertosVista = 0;
+        double recompensa = 0;
+        for (Map.Entry<String, String> par : datos) {
+            String generada = modelo.responder(par.getKey());
+            boolean ok = generada.equals(par.getValue());
+            if (ok) aciertos++;
+            recompensa += ChatRLAgentV2.calcularRecompensa(par.getKey(), generada, par.getValue());
+            if (vistas != null && vistas.contains(par.getValue())) {
+                conVista++;
+                if (ok) aciertosVista++;
+            }
+        }
+        return new double[]{
+                aciertos * 100.0 / datos.size(),
+                recompensa / datos.size(),
+                conVista == 0 ? 0 : aciertosVista * 100.0 / conVista,
+                conVista
+        };
+    }
+
+    /**
+     * Entrena las k particiones a la vez con "hilos" hilos Java y el presupuesto nativo repartido
+     */
+    public List<Particion> ejecutar(int hilos) throws InterruptedException, ExecutionException {
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        Environment entorno = Nd4j.getEnvironment();
+        int maxHilosAntes = entorno.maxThreads(), maxMaestrosAntes = entorno.maxMasterThreads();
+        int presupuesto = Math.max(1, nucleos / hilos);
+        entorno.setMaxThreads(presupuesto);
+        entorno.setMaxMasterThreads(presupuesto);
+
+        ExecutorService pool = Executors.newFixedThreadPool(hilos);
+        try {
+            List<Future<Particion>> futuros = new ArrayList<>();
+            for (int i = 0; i < k; i++) {
+                final int prueba = i;
+                futuros.add(pool.submit(() -> entrenarParticion(prueba)));
+            }
+            List<Particion> particiones = new ArrayList<>();
+            for (Future<Particion> f : futuros) particiones.add(f.get());
+            return particiones;
+        } finally {
+            pool.shutdown();
+            entorno.setMaxThreads(maxHilosAntes);
+            entorno.setMaxMasterThreads(maxMaestrosAntes);
+        }
+    }
+
+    private static String media(double[] valores, String formato) {
+        double m = Arrays.stream(valores).average().orElse(0);
+        double var = Arrays.stream(valores).map(v -> (v - m) * (v - m)).sum() / valores.length;
+        return String.format(formato + " ± " + formato, m, Math.sqrt(var));
+    }
+
+    public static void main(String[] args) throws Exception {
+        String agente = args.length > 0 ? args[0] : "ChatRLAgentV2";
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int epocas = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        String rutaJSON = args.length > 3 ? args[3] : "preguntas.json";
+        int hilos = Math.min(k, Runtime.getRuntime().availableProcessors());
+
+        System.out.println("╔════════════════════════════════════════╗");
+        System.out.println("║  🔀 VALIDACIÓN CRUZADA K-FOLD           ║");
+        System.out.println("╚════════════════════════════════════════╝\n");
+
+        ChatRLAgentV2.cargarDesdeJSON(rutaJSON);
+        List<String> respuestas = new ArrayList<>(ChatRLAgentV2.getRespuestasUnicas());
+        ValidacionCruzada validacion = new ValidacionCruzada(agente, ChatRLAgentV2.getRespuestasCorrectas(),
+                respuestas, k, epocas, 42L);
+        System.out.println("⚙️ " + agente + " | k = " + k + " | " + epocas + " épocas | " + hilos +
+                " particiones a la vez, " + Math.max(1, Runtime.getRuntime().availableProcessors() / hilos) +
+                " hilos ND4J cada una\n");
+
+        // Referencia: un único entrenamiento con todos los datos y todos los núcleos
+        long inicio = System.nanoTime();
+        Particion completo = validacion.entrenarParticion(-1);
+        double segundosUno = (System.nanoTime() - inicio) / 1e9;
+
+        inicio = System.nanoTime();
+        List<Particion> particiones = validacion.ejecutar(hilos);
+        double segundosK = (System.nanoTime() - inicio) / 1e9;
+
+        System.out.println("📊 Por partición");
+        for (Particion p : particiones) {
+            System.out.println(String.format("  %2d | prueba %5.1f%% (%5.1f%% en las %d/%d con respuesta vista) | recompensa %5.2f/10 | " +
+                            "entrenamiento %5.1f%% | %6.1f s",
+                    p.indice, p.precisionPrueba, p.precisionVistas, p.respuestaVista, p.preguntasPrueba,
+                    p.recompensaPrueba, p.precisionEntrenamiento, p.segundos));
+        }
+
+        double[] prueba = particiones.stream().mapToDouble(p -> p.precisionPrueba).toArray();
+        double[] vistas = particiones.stream().mapToDouble(p -> p.precisionVistas).toArray();
+        double[] recompensa = particiones.stream().mapToDouble(p -> p.recompensaPrueba).toArray();
+        double[] entrenamiento = particiones.stream().mapToDouble(p -> p.precisionEntrenamiento).toArray();
+
+        System.out.println("\n╔════════════════════════════════════════╗");
+        System.out.println("║          📊 RESULTADOS K-FOLD          ║");
+        System.out.println("║  Precisión en apartadas: " + media(prueba, "%.1f") + "%");
+        System.out.println("║  ...con respuesta vista: " + media(vistas, "%.1f") + "%");
+        System.out.println("║  Recompensa apartadas:   " + media(recompensa, "%.2f") + "/10");
+        System.out.println("║  Precisión entrenamiento: " + media(entrenamiento, "%.1f") + "% (todo el dataset: " +
+                String.format("%.1f", completo.precisionEntrenamiento) + "%)");
+        System.out.println("╚════════════════════════════════════════╝\n");
+        System.out.println(String.format("⏱️ Un entrenamiento: %.1f s | %d particiones en paralelo: %.1f s (x%.2f)",
+                segundosUno, k, segundosK, segundosK / segundosUno));
+    }
+}